@@ -0,0 +1,96 @@
+package com.example.a22f3272smd_project;
+
+import android.util.Size;
+
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+
+/**
+ * Analysis resolution derived from what a detector actually has to resolve.
+ *
+ * Each factory turns a workload (smallest barcode, smallest face, smallest text) into the
+ * pixel count needed across the short side of the frame, using ML Kit's input guidance, and
+ * asks CameraX for the closest 4:3 size at or above it. Anything larger only adds conversion
+ * and inference time.
+ */
+public final class AnalysisResolution {
+
+    // ML Kit input guidance
+    private static final int PIXELS_PER_BARCODE_MODULE = 2;
+    private static final int MIN_FACE_PIXELS = 100;
+    private static final int MIN_CHARACTER_PIXELS = 16;
+    // The object detector downscales internally; more than VGA buys nothing
+    private static final int OBJECT_SHORT_SIDE = 480;
+
+    // Smallest analysis size worth asking for
+    private static final int MIN_SHORT_SIDE = 240;
+
+    private final String description;
+    private final int shortSide;
+
+    private AnalysisResolution(String description, int shortSide) {
+        this.description = description;
+        this.shortSide = Math.max(MIN_SHORT_SIDE, shortSide);
+    }
+
+    /**
+     * @param modulesAcross    modules (narrowest bars or QR cells) across the code, e.g. 95
+     *                         for EAN-13 or 57 for a version 10 QR code
+     * @param minWidthFraction smallest share of the frame width the code will cover
+     */
+    public static AnalysisResolution forBarcode(int modulesAcross, float minWidthFraction) {
+        int pixels = (int) Math.ceil(PIXELS_PER_BARCODE_MODULE * modulesAcross / minWidthFraction);
+        return new AnalysisResolution("barcode " + modulesAcross + " modules at "
+                + Math.round(minWidthFraction * 100) + "% width", pixels);
+    }
+
+    /**
+     * @param minFaceSize the detector's setMinFaceSize value (face width / image width)
+     */
+    public static AnalysisResolution forFace(float minFaceSize) {
+        int pixels = (int) Math.ceil(MIN_FACE_PIXELS / minFaceSize);
+        return new AnalysisResolution("face at " + Math.round(minFaceSize * 100) + "% width", pixels);
+    }
+
+    /**
+     * @param minTextHeightFraction height of the smallest characters to read, as a share of the
+     *                              frame's short side
+     */
+    public static AnalysisResolution forText(float minTextHeightFraction) {
+        int pixels = (int) Math.ceil(MIN_CHARACTER_PIXELS / minTextHeightFraction);
+        return new AnalysisResolution("text at " + (minTextHeightFraction * 100) + "% height", pixels);
+    }
+
+    public static AnalysisResolution forObjects() {
+        return new AnalysisResolution("objects", OBJECT_SHORT_SIDE);
+    }
+
+    /**
+     * Pixels needed across the short side of the analysis frame
+     */
+    public int getShortSide() {
+        return shortSide;
+    }
+
+    /**
+     * Requested size in sensor orientation (landscape, 4:3)
+     */
+    public Size getTargetSize() {
+        return new Size((int) Math.ceil(shortSide * 4 / 3.0), shortSide);
+    }
+
+    public ResolutionSelector toResolutionSelector() {
+        return new ResolutionSelector.Builder()
+                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                .setResolutionStrategy(new ResolutionStrategy(getTargetSize(),
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        Size target = getTargetSize();
+        return description + " -> " + target.getWidth() + "x" + target.getHeight();
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.a22f3272smd_project;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+
+/**
+ * Classifies raw barcode payloads for BarcodeDetection.
+ *
+ * {@link #classify(String, int)} recognizes EAN/UPC product codes (with check digit validation),
+ * URLs, Wi-Fi configs, vCards, geo and tel URIs in a single pass over the payload, without
+ * regular expressions or repeated case conversion. Check digits are only enforced when the
+ * scanner reported an EAN/UPC format; digits from Code 128, ITF, QR and the like are text.
+ * Only the compile-time format constants of {@link Barcode} are used, so the classification
+ * path can still be benchmarked on the JVM.
+ */
+public final class BarcodeClassifier {
+
+    private BarcodeClassifier() {
+    }
+
+    /**
+     * Classifies a payload whose symbology isn't known, e.g. text shown on screen. Digits that
+     * pass the GTIN check count as a product code, but a failed check is never reported as
+     * INVALID since the code may not have been an EAN/UPC at all.
+     */
+    public static BarcodePayload classify(String data) {
+        return classify(data, Barcode.FORMAT_UNKNOWN);
+    }
+
+    /**
+     * @param format the {@link Barcode#getFormat()} the payload was decoded from
+     */
+    public static BarcodePayload classify(String data, int format) {
+        if (isProductFormat(format)) {
+            return classifyProduct(data, format);
+        }
+
+        if (startsWithIgnoreCase(data, "http://") || startsWithIgnoreCase(data, "https://")) {
+            return BarcodePayload.simple(BarcodePayload.Type.URL, data, data);
+        }
+        if (startsWithIgnoreCase(data, "WIFI:")) {
+            return parseWifi(data);
+        }
+        if (startsWithIgnoreCase(data, "BEGIN:VCARD")) {
+            return parseVCard(data);
+        }
+        if (startsWithIgnoreCase(data, "geo:")) {
+            return parseGeo(data);
+        }
+        if (startsWithIgnoreCase(data, "tel:")) {
+            return BarcodePayload.simple(BarcodePayload.Type.PHONE, data, data.substring(4).trim());
+        }
+
+        // One scan collects everything the remaining checks need
+        int length = data.length();
+        boolean allDigits = length > 0;
+        boolean hasWhitespace = false;
+        boolean domainSuffix = false; // ".xx" (2+ lowercase letters) at the end or before a '/'
+        int suffixLetters = -1; // Letters since the last '.', -1 when not in a candidate suffix
+        for (int i = 0; i < length && !hasWhitespace; i++) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') {
+                allDigits = false;
+            }
+            if (Character.isWhitespace(c)) {
+                hasWhitespace = true;
+            } else if (c == '.') {
+                suffixLetters = 0;
+            } else if (c >= 'a' && c <= 'z' && suffixLetters >= 0) {
+                suffixLetters++;
+            } else {
+                if (c == '/' && suffixLetters >= 2) {
+                    domainSuffix = true;
+                }
+                suffixLetters = -1;
+            }
+        }
+        if (suffixLetters >= 2) {
+            domainSuffix = true;
+        }
+
+        if (allDigits) {
+            boolean gtinLength = length == 8 || length == 12 || length == 13 || length == 14;
+            return format == Barcode.FORMAT_UNKNOWN && gtinLength && hasValidCheckDigit(data)
+                    ? BarcodePayload.simple(BarcodePayload.Type.PRODUCT, data, data)
+                    : BarcodePayload.simple(BarcodePayload.Type.TEXT, data, data);
+        }
+
+        // URL without protocol; a URL can't contain whitespace
+        if (!hasWhitespace && (startsWithIgnoreCase(data, "www.")
+                || endsWithIgnoreCase(data, ".com")
+                || endsWithIgnoreCase(data, ".org")
+                || endsWithIgnoreCase(data, ".net")
+                || domainSuffix)) {
+            return BarcodePayload.simple(BarcodePayload.Type.URL, data, "https://" + data);
+        }
+
+        return BarcodePayload.simple(BarcodePayload.Type.TEXT, data, data);
+    }
+
+    public static boolean isProductBarcode(String data) {
+        return classify(data).type == BarcodePayload.Type.PRODUCT;
+    }
+
+    /**
+     * Returns the payload as an openable URL, or null if it doesn't look like one
+     */
+    public static String parseUrl(String data) {
+        BarcodePayload payload = classify(data);
+        return payload.type == BarcodePayload.Type.URL ? payload.value : null;
+    }
+
+    private static boolean isProductFormat(int format) {
+        return format == Barcode.FORMAT_EAN_8
+                || format == Barcode.FORMAT_EAN_13
+                || format == Barcode.FORMAT_UPC_A
+                || format == Barcode.FORMAT_UPC_E;
+    }
+
+    /**
+     * EAN/UPC payloads must be all digits of the symbology's length with a valid check digit
+     */
+    private static BarcodePayload classifyProduct(String data, int format) {
+        String digits = data;
+        if (format == Barcode.FORMAT_UPC_E) {
+            // UPC-E carries the check digit of its UPC-A expansion
+            digits = data.length() == 8 ? expandUpcE(data) : null;
+        } else {
+            int expected = format == Barcode.FORMAT_EAN_8 ? 8 : format == Barcode.FORMAT_UPC_A ? 12 : 13;
+            if (data.length() != expected) {
+                digits = null;
+            }
+        }
+        boolean valid = digits != null && isAllDigits(digits) && hasValidCheckDigit(digits);
+        return BarcodePayload.simple(valid ? BarcodePayload.Type.PRODUCT : BarcodePayload.Type.INVALID,
+                data, data);
+    }
+
+    /**
+     * Expands an 8 digit UPC-E code (number system, 6 digits, check digit) to its 12 digit
+     * UPC-A form, or returns null if it isn't one
+     */
+    static String expandUpcE(String upcE) {
+        if (upcE.length() != 8 || !isAllDigits(upcE)) {
+            return null;
+        }
+        char numberSystem = upcE.charAt(0);
+        if (numberSystem != '0' && numberSystem != '1') {
+            return null;
+        }
+        String d = upcE.substring(1, 7);
+        char last = d.charAt(5);
+        StringBuilder upcA = new StringBuilder(12).append(numberSystem);
+        switch (last) {
+            case '0':
+            case '1':
+            case '2':
+                upcA.append(d, 0, 2).append(last).append("0000").append(d, 2, 5);
+                break;
+            case '3':
+                upcA.append(d, 0, 3).append("00000").append(d, 3, 5);
+                break;
+            case '4':
+                upcA.append(d, 0, 4).append("00000").append(d.charAt(4));
+                break;
+            default:
+                upcA.append(d, 0, 5).append("0000").append(last);
+                break;
+        }
+        return upcA.append(upcE.charAt(7)).toString();
+    }
+
+    private static boolean isAllDigits(String data) {
+        if (data.isEmpty()) return false;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * GTIN (EAN-8, UPC-A, EAN-13, GTIN-14) mod 10 check digit
+     */
+    static boolean hasValidCheckDigit(String digits) {
+        int last = digits.length() - 1;
+        int sum = 0;
+        for (int i = last - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            // Weights alternate 3, 1, 3... starting next to the check digit
+            sum += ((last - i) % 2 == 1) ? digit * 3 : digit;
+        }
+        int expected = (10 - sum % 10) % 10;
+        return expected == digits.charAt(last) - '0';
+    }
+
+    /**
+     * WIFI:T:WPA;S:name;P:password;; with backslash escaping; the closing ';' may be missing
+     */
+    private static BarcodePayload parseWifi(String data) {
+        // S, P and T values in that order
+        String[] values = new String[3];
+
+        StringBuilder field = new StringBuilder();
+        boolean escaped = false;
+        for (int i = 5; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (escaped) {
+                field.append(c);
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == ';') {
+                storeWifiField(field, values);
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        storeWifiField(field, values);
+
+        if (values[0] == null) {
+            return BarcodePayload.simple(BarcodePayload.Type.TEXT, data, data);
+        }
+        return BarcodePayload.wifi(data, values[0], values[1], values[2]);
+    }
+
+    private static void storeWifiField(StringBuilder field, String[] values) {
+        if (field.length() <= 2 || field.charAt(1) != ':') {
+            return;
+        }
+        int index = "SPT".indexOf(Character.toUpperCase(field.charAt(0)));
+        if (index >= 0) {
+            values[index] = field.substring(2);
+        }
+    }
+
+    /**
+     * Picks the display name, first phone number and first email out of a vCard
+     */
+    private static BarcodePayload parseVCard(String data) {
+        String name = null;
+        String phone = null;
+        String email = null;
+
+        int lineStart = 0;
+        int length = data.length();
+        while (lineStart < length) {
+            int lineEnd = data.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = length;
+            int colon = data.indexOf(':', lineStart);
+
+            if (colon > lineStart && colon < lineEnd) {
+                String value = data.substring(colon + 1, lineEnd).trim();
+                if (name == null && startsWithIgnoreCase(data, lineStart, "FN")) {
+                    name = value;
+                } else if (phone == null && startsWithIgnoreCase(data, lineStart, "TEL")) {
+                    phone = value;
+                } else if (email == null && startsWithIgnoreCase(data, lineStart, "EMAIL")) {
+                    email = value;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        return BarcodePayload.vCard(data, name, phone, email);
+    }
+
+    /**
+     * geo:latitude,longitude[,altitude][;params][?query]
+     */
+    private static BarcodePayload parseGeo(String data) {
+        int comma = data.indexOf(',', 4);
+        if (comma < 0) {
+            return BarcodePayload.simple(BarcodePayload.Type.TEXT, data, data);
+        }
+        int end = comma + 1;
+        while (end < data.length() && ",;?".indexOf(data.charAt(end)) < 0) {
+            end++;
+        }
+
+        try {
+            double latitude = Double.parseDouble(data.substring(4, comma).trim());
+            double longitude = Double.parseDouble(data.substring(comma + 1, end).trim());
+            if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                return BarcodePayload.geo(data, latitude, longitude);
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to plain text
+        }
+        return BarcodePayload.simple(BarcodePayload.Type.TEXT, data, data);
+    }
+
+    private static boolean startsWithIgnoreCase(String data, String prefix) {
+        return data.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static boolean startsWithIgnoreCase(String data, int offset, String prefix) {
+        return data.regionMatches(true, offset, prefix, 0, prefix.length());
+    }
+
+    private static boolean endsWithIgnoreCase(String data, String suffix) {
+        return data.regionMatches(true, data.length() - suffix.length(), suffix, 0, suffix.length());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.a22f3272smd_project;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, time-windowed set of recently seen barcode values.
+ *
+ * Each value gets its own cooldown, so a new code is reported immediately while a code
+ * that is still in view (or comes back within the window) is suppressed. Entries live in a
+ * fixed open-addressed table updated with compare-and-set, so analyzer threads never block
+ * each other. When every probed slot is live the oldest one is evicted.
+ */
+public class BarcodeDeduplicator {
+
+    private static final int MAX_PROBES = 8;
+
+    private static final class Entry {
+        final String value;
+        final long seenAt;
+
+        Entry(String value, long seenAt) {
+            this.value = value;
+            this.seenAt = seenAt;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long cooldownMillis;
+
+    /**
+     * The table gets the smallest power of two of slots that is at least {@code capacity},
+     * and never fewer than 16. With {@code capacity} live values the load factor is therefore
+     * 1.0 when capacity is such a power of two (64 gives 64 slots) and between 0.5 and 1.0
+     * otherwise (65 gives 128, 8 gives 16). There is no headroom and only 8 slots are
+     * probed, so near a full table a value can evict an older live one before
+     * {@code capacity} values are held.
+     *
+     * @param capacity Number of distinct values the table has slots for
+     * @param cooldownMillis How long a value is suppressed after it was last seen
+     */
+    public BarcodeDeduplicator(int capacity, long cooldownMillis) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBES, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    /**
+     * Returns true if the value should be reported, false if it is still cooling down
+     */
+    public boolean accept(String value) {
+        return accept(value, SystemClock.elapsedRealtime());
+    }
+
+    public boolean accept(String value, long nowMillis) {
+        if (value == null) return false;
+
+        int start = spread(value.hashCode()) & mask;
+        while (true) {
+            int target = -1;
+            Entry expected = null;
+            int oldestSlot = start;
+            Entry oldest = null;
+            boolean retry = false;
+
+            for (int i = 0; i < MAX_PROBES; i++) {
+                int slot = (start + i) & mask;
+                Entry entry = slots.get(slot);
+
+                if (entry != null && entry.value.equals(value)) {
+                    boolean coolingDown = nowMillis - entry.seenAt < cooldownMillis;
+                    // Refresh the timestamp so a code held in view stays suppressed
+                    if (slots.compareAndSet(slot, entry, new Entry(value, nowMillis))) {
+                        return !coolingDown;
+                    }
+                    retry = true;
+                    break;
+                }
+
+                if (target == -1 && (entry == null || nowMillis - entry.seenAt >= cooldownMillis)) {
+                    target = slot;
+                    expected = entry;
+                }
+                if (entry != null && (oldest == null || entry.seenAt < oldest.seenAt)) {
+                    oldest = entry;
+                    oldestSlot = slot;
+                }
+            }
+            if (retry) continue;
+
+            // No free or expired slot in the probe window: evict the oldest entry
+            if (target == -1) {
+                target = oldestSlot;
+                expected = oldest;
+            }
+            if (slots.compareAndSet(target, expected, new Entry(value, nowMillis))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Restarts the window of a value that is still remembered, without reporting it; for
+     * codes known to be in view without a fresh decode (e.g. a reused static-scene result)
+     */
+    public void touch(String value) {
+        touch(value, SystemClock.elapsedRealtime());
+    }
+
+    public void touch(String value, long nowMillis) {
+        if (value == null) return;
+
+        int start = spread(value.hashCode()) & mask;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (start + i) & mask;
+            Entry entry = slots.get(slot);
+            if (entry != null && entry.value.equals(value)) {
+                // Losing the race means another thread just refreshed it
+                if (nowMillis - entry.seenAt < cooldownMillis) {
+                    slots.compareAndSet(slot, entry, new Entry(value, nowMillis));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets every value, e.g. when the user explicitly asks to rescan
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
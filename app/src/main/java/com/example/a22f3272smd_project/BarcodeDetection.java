@@ -4,10 +4,11 @@ import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.Intent;
-import android.media.MediaPlayer;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.util.Log;
 import android.view.View;
@@ -16,47 +17,63 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.camera.core.CameraSelector;
-import androidx.camera.core.ImageAnalysis;
-import androidx.camera.core.ImageProxy;
-import androidx.camera.core.Preview;
-import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
-import androidx.core.content.ContextCompat;
 
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.mlkit.vision.barcode.common.Barcode;
-import com.google.mlkit.vision.barcode.BarcodeScanning;
 import com.google.mlkit.vision.barcode.BarcodeScanner;
-import com.google.mlkit.vision.common.InputImage;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class BarcodeDetection extends AppCompatActivity {
 
+    private static final int INVENTORY_LINES = 6;
+    private static final long INVENTORY_REFRESH_MS = 1000;
+
     private PreviewView previewView;
     private TextView resultText;
-    private ExecutorService cameraExecutor;
-    private boolean scanned = false;
-    private final Handler handler = new Handler();
-    private String lastScannedData = "";
+    private FramePipeline<List<Barcode>> framePipeline;
+    // Each code is reported once, then suppressed while it stays in view (2 second window)
+    private final BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, 2000);
+    private ScanHistoryWriter scanHistory;
+    // Null in single-code mode; otherwise every code in a frame is counted (main thread only)
+    private InventoryWorkflow inventoryWorkflow;
+    private final InventoryTally inventory = new InventoryTally(2000);
+    private long lastInventoryRefresh;
+    // Classified with the scanner's format, so "open" doesn't have to guess the symbology
+    private BarcodePayload lastPayload;
+    // One pool for the whole session; a MediaPlayer per beep leaked one player per scan
+    private SoundPool feedbackSounds;
+    private int feedbackSoundId;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_barcode_detection);
+        scanHistory = ScanHistoryWriter.getInstance(this);
+        WarmStartManager.getInstance().acquire();
+
+        feedbackSounds = new SoundPool.Builder()
+                .setMaxStreams(1)
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .build();
+        feedbackSoundId = feedbackSounds.load(this, R.raw.notification, 1);
 
         previewView = findViewById(R.id.preview_view);
         resultText = findViewById(R.id.result_text);
         Button copyButton = findViewById(R.id.copy_button);
         Button openLinkButton = findViewById(R.id.open_link_button);
+        Button rescanButton = findViewById(R.id.rescan_button);
+        Button inventoryButton = findViewById(R.id.inventory_button);
 
         copyButton.setOnClickListener(v -> {
-            String textToCopy = resultText.getText().toString().trim();
+            String textToCopy = inventoryWorkflow != null
+                    ? inventoryCsv() : resultText.getText().toString().trim();
             if (!textToCopy.isEmpty() && !textToCopy.equals("Scan a barcode...")) {
                 ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
                 ClipData clip = ClipData.newPlainText("barcode", textToCopy);
@@ -78,123 +95,192 @@ public class BarcodeDetection extends AppCompatActivity {
             openDetectedContent(data);
         });
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
+        rescanButton.setOnClickListener(v -> {
+            deduplicator.clear();
+            inventory.clear();
+            resultText.setText("Scan a barcode...");
+        });
+
+        // Off -> Retail -> Logistics -> Off; each workflow uses a scanner limited to its formats
+        inventoryButton.setOnClickListener(v -> {
+            InventoryWorkflow[] workflows = InventoryWorkflow.values();
+            int next = inventoryWorkflow == null ? 0 : inventoryWorkflow.ordinal() + 1;
+            inventoryWorkflow = next < workflows.length ? workflows[next] : null;
+
+            inventoryButton.setText(inventoryWorkflow != null ? inventoryWorkflow.label : "Inventory");
+            openLinkButton.setEnabled(inventoryWorkflow == null);
+            inventory.clear();
+            deduplicator.clear();
+            resultText.setText(inventoryWorkflow != null
+                    ? "Counting " + inventoryWorkflow.label + " codes..." : "Scan a barcode...");
+            framePipeline.setDetector(scannerFor(inventoryWorkflow)::process,
+                    (barcodes, inputImage, reused) -> handleBarcodes(barcodes, reused));
+        });
+
         startCamera();
     }
 
     private void startCamera() {
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
-        cameraProviderFuture.addListener(() -> {
-            try {
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
-
-                CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
-
-                Preview preview = new Preview.Builder().build();
-                preview.setSurfaceProvider(previewView.getSurfaceProvider());
-
-                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder().build();
-
-                BarcodeScanner scanner = BarcodeScanning.getClient();
-
-                imageAnalysis.setAnalyzer(cameraExecutor, image -> {
-                    if (!scanned) {
-                        @SuppressWarnings("UnsafeOptInUsageError")
-                        InputImage inputImage = InputImage.fromMediaImage(
-                                image.getImage(), image.getImageInfo().getRotationDegrees());
-
-                        scanner.process(inputImage)
-                                .addOnSuccessListener(barcodes -> {
-                                    if (!barcodes.isEmpty()) {
-                                        Barcode barcode = barcodes.get(0);
-                                        String value = barcode.getRawValue();
-                                        if (value != null && !value.equals(lastScannedData)) {
-                                            scanned = true;
-                                            lastScannedData = value;
-                                            handleResult(value);
-
-                                            handler.postDelayed(() -> {
-                                                scanned = false;
-                                            }, 2000); // Allow scanning again after 2 seconds
-                                        }
-                                    }
-                                    image.close();
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("BarcodeScan", "Detection failed", e);
-                                    image.close();
-                                });
-                    } else {
-                        image.close();
-                    }
-                });
-
-                cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+        BarcodeScanner scanner = scannerFor(inventoryWorkflow);
+
+        framePipeline = new FramePipeline<>(this, this, previewView);
+        framePipeline.setMetrics(FrameMetrics.forDetector("barcode"));
+        framePipeline.setCadenceGovernor(new CadenceGovernor("barcode", 150, 0, 500));
+        // A code left in front of a fixed scanner is decoded once, then reused for up to 2 s
+        framePipeline.setStaticSceneFilter(new StaticSceneFilter(8, 2000));
+        // An EAN-13 code filling 40% of the frame width
+        framePipeline.setAnalysisResolution(AnalysisResolution.forBarcode(95, 0.4f));
+        framePipeline.setDetector(scanner::process, (barcodes, inputImage, reused) -> handleBarcodes(barcodes, reused));
+        framePipeline.start();
+    }
 
-            } catch (Exception e) {
-                Log.e("BarcodeScan", "Camera init failed", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+    private static BarcodeScanner scannerFor(InventoryWorkflow workflow) {
+        WarmStartManager warmStart = WarmStartManager.getInstance();
+        return workflow == null
+                ? warmStart.getBarcodeScanner()
+                : warmStart.getBarcodeScanner(workflow.primaryFormat, workflow.moreFormats);
     }
 
-    private void handleResult(String data) {
-        runOnUiThread(() -> {
-            resultText.setText(data);
-            MediaPlayer.create(this, R.raw.notification).start();
-            Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-            if (vibrator != null) {
-                vibrator.vibrate(300);
+    private void handleBarcodes(List<Barcode> barcodes, boolean reused) {
+        // Codes of a reused result were already reported, counted and recorded; they are
+        // still in view, so their windows are renewed or they would count again on cooldown
+        if (reused) {
+            long now = SystemClock.elapsedRealtime();
+            for (Barcode barcode : barcodes) {
+                deduplicator.touch(barcode.getRawValue(), now);
+                inventory.touch(barcode.getRawValue(), now);
             }
-        });
+            return;
+        }
+        if (inventoryWorkflow != null) {
+            handleInventory(barcodes);
+            return;
+        }
+
+        if (!barcodes.isEmpty()) {
+            Barcode barcode = barcodes.get(0);
+            String value = barcode.getRawValue();
+            if (value == null) return;
+
+            // Misread product codes are dropped before any sound, vibration or UI work
+            BarcodePayload payload = BarcodeClassifier.classify(value, barcode.getFormat());
+            if (!payload.isValid()) {
+                Log.d("BarcodeScan", "Rejected code with bad check digit: " + value);
+                return;
+            }
+            if (deduplicator.accept(value)) {
+                scanHistory.record(ScanRecord.TYPE_BARCODE, value, payload.type.name());
+                lastPayload = payload;
+                handleResult(value);
+            }
+        }
     }
 
-    private void openDetectedContent(String data) {
-        // First check if it's a product barcode (numeric only typically)
-        if (isProductBarcode(data)) {
-            searchProductOnline(data);
-            return;
+    /**
+     * Counts every valid code in the frame; one beep per frame however many codes were new
+     */
+    private void handleInventory(List<Barcode> barcodes) {
+        long now = SystemClock.elapsedRealtime();
+        int counted = 0;
+        for (Barcode barcode : barcodes) {
+            String value = barcode.getRawValue();
+            if (value == null) continue;
+
+            BarcodePayload payload = BarcodeClassifier.classify(value, barcode.getFormat());
+            if (!payload.isValid()) {
+                Log.d("BarcodeScan", "Rejected code with bad check digit: " + value);
+                continue;
+            }
+            if (inventory.accept(value, payload.type, now)) {
+                scanHistory.record(ScanRecord.TYPE_BARCODE, value, payload.type.name());
+                counted++;
+            }
         }
 
-        // Check if it's a URL or needs conversion to URL
-        String url = parseUrl(data);
+        if (counted > 0) {
+            playFeedback();
+        }
+        // Also refresh now and then without new codes, so codes per second decays
+        if (counted > 0 || now - lastInventoryRefresh >= INVENTORY_REFRESH_MS) {
+            lastInventoryRefresh = now;
+            showInventory(now);
+        }
+    }
 
-        if (url != null) {
-            // It's a URL, open directly
-            openUrl(url);
-        } else {
-            // Not recognized as a URL, search for it
-            searchGeneric(data);
+    private void showInventory(long now) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "%s: %d codes, %d scans, %.1f codes/s",
+                inventoryWorkflow.label, inventory.getDistinctCodes(), inventory.getTotalScans(),
+                inventory.getCodesPerSecond(now)));
+
+        // Most recently first-seen codes last, like a growing list
+        List<InventoryTally.Entry> entries = inventory.getEntries();
+        for (int i = Math.max(0, entries.size() - INVENTORY_LINES); i < entries.size(); i++) {
+            InventoryTally.Entry entry = entries.get(i);
+            text.append('\n').append(entry.value).append("  x").append(entry.count);
         }
+        resultText.setText(text.toString());
     }
 
-    private boolean isProductBarcode(String data) {
-        // Most product barcodes (UPC, EAN) are purely numeric and 8-14 digits
-        return data.matches("\\d{8,14}");
+    private String inventoryCsv() {
+        StringBuilder csv = new StringBuilder("code,type,count\n");
+        for (InventoryTally.Entry entry : inventory.getEntries()) {
+            csv.append('"').append(entry.value.replace("\"", "\"\"")).append("\",")
+                    .append(entry.type.name()).append(',')
+                    .append(entry.count).append('\n');
+        }
+        return inventory.getDistinctCodes() == 0 ? "" : csv.toString();
     }
 
-    private void searchProductOnline(String barcode) {
-        // Choose a product search engine (Amazon, Google Shopping, etc.)
-        String searchUrl = "https://www.google.com/search?q=" + barcode;
-        openUrl(searchUrl);
+    private void handleResult(String data) {
+        runOnUiThread(() -> {
+            resultText.setText(data);
+            playFeedback();
+        });
     }
 
-    private String parseUrl(String data) {
-        // If already a properly formatted URL, return it
-        if (data.toLowerCase().startsWith("http://") || data.toLowerCase().startsWith("https://")) {
-            return data;
+    private void playFeedback() {
+        // Silently skipped until the sample has finished loading
+        feedbackSounds.play(feedbackSoundId, 1f, 1f, 1, 0, 1f);
+        Vibrator vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        if (vibrator != null) {
+            vibrator.vibrate(300);
         }
+    }
 
-        // Check if it's a URL without protocol
-        if (data.toLowerCase().startsWith("www.") ||
-                data.toLowerCase().endsWith(".com") ||
-                data.toLowerCase().endsWith(".org") ||
-                data.toLowerCase().endsWith(".net") ||
-                data.matches(".*\\.[a-z]{2,}(/.*)?")) {
-            return "https://" + data;
+    private void openDetectedContent(String data) {
+        BarcodePayload payload = lastPayload != null && lastPayload.raw.equals(data)
+                ? lastPayload : BarcodeClassifier.classify(data);
+        switch (payload.type) {
+            case PRODUCT:
+                searchProductOnline(payload.value);
+                break;
+            case URL:
+            case GEO:
+                // It's a URL (or a geo: URI a maps app can open), open directly
+                openUrl(payload.value);
+                break;
+            case PHONE:
+                openUrl("tel:" + payload.value);
+                break;
+            case WIFI:
+                Toast.makeText(this, "Wi-Fi network: " + payload.value, Toast.LENGTH_LONG).show();
+                break;
+            case VCARD:
+                Toast.makeText(this, "Contact: " + (payload.value != null ? payload.value : "unnamed"),
+                        Toast.LENGTH_LONG).show();
+                break;
+            default:
+                // Not recognized as a specific format, search for it
+                searchGeneric(data);
+                break;
         }
+    }
 
-        return null;
+    private void searchProductOnline(String barcode) {
+        // Choose a product search engine (Amazon, Google Shopping, etc.)
+        String searchUrl = "https://www.google.com/search?q=" + barcode;
+        openUrl(searchUrl);
     }
 
     private void searchGeneric(String query) {
@@ -228,7 +314,9 @@ public class BarcodeDetection extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        cameraExecutor.shutdown();
-        handler.removeCallbacksAndMessages(null);
+        framePipeline.shutdown();
+        feedbackSounds.release();
+        scanHistory.flush();
+        WarmStartManager.getInstance().release();
     }
 }
\ No newline at end of file
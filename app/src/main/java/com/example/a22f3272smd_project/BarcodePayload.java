@@ -0,0 +1,72 @@
+package com.example.a22f3272smd_project;
+
+/**
+ * Structured result of {@link BarcodeClassifier#classify(String, int)}.
+ *
+ * {@code value} holds the main field for the type (the digits of a product code, the
+ * openable URL, the dialable number, the geo URI, the Wi-Fi SSID or the vCard name);
+ * the remaining fields are only set for the types that carry them.
+ */
+public final class BarcodePayload {
+
+    public enum Type {
+        PRODUCT,
+        URL,
+        WIFI,
+        VCARD,
+        GEO,
+        PHONE,
+        TEXT,
+        /** Looked like an EAN/UPC code but the check digit is wrong */
+        INVALID
+    }
+
+    public final Type type;
+    public final String raw;
+    public final String value;
+
+    // Wi-Fi
+    public final String password;
+    public final String encryption;
+
+    // vCard
+    public final String phone;
+    public final String email;
+
+    // Geo
+    public final double latitude;
+    public final double longitude;
+
+    private BarcodePayload(Type type, String raw, String value, String password, String encryption,
+                           String phone, String email, double latitude, double longitude) {
+        this.type = type;
+        this.raw = raw;
+        this.value = value;
+        this.password = password;
+        this.encryption = encryption;
+        this.phone = phone;
+        this.email = email;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    static BarcodePayload simple(Type type, String raw, String value) {
+        return new BarcodePayload(type, raw, value, null, null, null, null, 0, 0);
+    }
+
+    static BarcodePayload wifi(String raw, String ssid, String password, String encryption) {
+        return new BarcodePayload(Type.WIFI, raw, ssid, password, encryption, null, null, 0, 0);
+    }
+
+    static BarcodePayload vCard(String raw, String name, String phone, String email) {
+        return new BarcodePayload(Type.VCARD, raw, name, null, null, phone, email, 0, 0);
+    }
+
+    static BarcodePayload geo(String raw, double latitude, double longitude) {
+        return new BarcodePayload(Type.GEO, raw, raw, null, null, null, null, latitude, longitude);
+    }
+
+    public boolean isValid() {
+        return type != Type.INVALID;
+    }
+}
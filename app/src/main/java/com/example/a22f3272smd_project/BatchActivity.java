@@ -0,0 +1,300 @@
+package com.example.a22f3272smd_project;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.Spinner;
+import android.widget.TextView;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScanning;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+import com.google.mlkit.vision.objects.DetectedObject;
+import com.google.mlkit.vision.objects.ObjectDetector;
+import com.google.mlkit.vision.objects.defaults.ObjectDetectorOptions;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offline mode: runs one of the four detectors over a gallery selection or a whole folder
+ * of images and reports throughput. Results also go to the scan history.
+ */
+public class BatchActivity extends AppCompatActivity {
+
+    private static final String TAG = "BatchActivity";
+    private static final String[] MODES = {"Barcode", "Text", "Face", "Object"};
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    // Longest image side each detector can make use of; anything larger only costs decode time
+    private static final int BARCODE_MAX_DIMENSION = 1280;
+    private static final int TEXT_MAX_DIMENSION = 2048;
+    private static final int FACE_MAX_DIMENSION = 960;
+    private static final int OBJECT_MAX_DIMENSION = 640;
+
+    /**
+     * Turns a detector result into one line for the results view
+     */
+    private interface Summarizer<T> {
+        String summarize(T result);
+    }
+
+    private final ExecutorService listingExecutor = Executors.newSingleThreadExecutor();
+    private Spinner modeSpinner;
+    private Button pickImagesButton;
+    private Button pickFolderButton;
+    private Button cancelButton;
+    private TextView progressText;
+    private TextView resultText;
+    private ScanHistoryWriter scanHistory;
+
+    private BatchProcessor<?> batchProcessor;
+    private Runnable closeDetector;
+    private long lastProgressAt;
+
+    private final ActivityResultLauncher<String[]> pickImages = registerForActivityResult(
+            new ActivityResultContracts.OpenMultipleDocuments(), uris -> {
+                if (uris != null && !uris.isEmpty()) {
+                    startBatch(new ArrayList<>(uris));
+                }
+            });
+
+    private final ActivityResultLauncher<Uri> pickFolder = registerForActivityResult(
+            new ActivityResultContracts.OpenDocumentTree(), treeUri -> {
+                if (treeUri == null) return;
+                progressText.setText("Listing images...");
+                listingExecutor.execute(() -> {
+                    List<Uri> images = listImages(treeUri);
+                    runOnUiThread(() -> startBatch(images));
+                });
+            });
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_batch);
+        scanHistory = ScanHistoryWriter.getInstance(this);
+
+        modeSpinner = findViewById(R.id.mode_spinner);
+        pickImagesButton = findViewById(R.id.pick_images_button);
+        pickFolderButton = findViewById(R.id.pick_folder_button);
+        cancelButton = findViewById(R.id.cancel_button);
+        progressText = findViewById(R.id.progress_text);
+        resultText = findViewById(R.id.result_text);
+
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, MODES);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        modeSpinner.setAdapter(adapter);
+
+        pickImagesButton.setOnClickListener(v -> pickImages.launch(new String[]{"image/*"}));
+        pickFolderButton.setOnClickListener(v -> pickFolder.launch(null));
+        cancelButton.setOnClickListener(v -> {
+            if (batchProcessor != null) {
+                batchProcessor.cancel();
+                progressText.setText("Cancelling...");
+            }
+        });
+        setRunning(false);
+    }
+
+    private void startBatch(List<Uri> images) {
+        if (images.isEmpty()) {
+            progressText.setText("No images found.");
+            return;
+        }
+        setRunning(true);
+        resultText.setText("");
+        progressText.setText("Processing " + images.size() + " images...");
+
+        switch (modeSpinner.getSelectedItemPosition()) {
+            case 0: {
+                BarcodeScanner scanner = BarcodeScanning.getClient();
+                runBatch(images, scanner::process, BARCODE_MAX_DIMENSION, (List<Barcode> barcodes) -> {
+                    StringBuilder summary = new StringBuilder();
+                    for (Barcode barcode : barcodes) {
+                        String value = barcode.getRawValue();
+                        if (value == null) continue;
+                        BarcodePayload payload = BarcodeClassifier.classify(value, barcode.getFormat());
+                        summary.append(summary.length() > 0 ? ", " : "").append(value);
+                        // Listed so the image can be rescanned, but never persisted
+                        if (!payload.isValid()) {
+                            summary.append(" (bad check digit)");
+                            continue;
+                        }
+                        scanHistory.record(ScanRecord.TYPE_BARCODE, value, payload.type.name());
+                    }
+                    return summary.length() > 0 ? summary.toString() : "no barcodes";
+                }, scanner::close);
+                break;
+            }
+            case 1: {
+                TextRecognizerPool.PooledRecognizer recognizer =
+                        TextRecognizerPool.getInstance().acquire(TextRecognizerOptions.DEFAULT_OPTIONS);
+                runBatch(images, recognizer::process, TEXT_MAX_DIMENSION, (Text text) -> {
+                    if (text.getText().isEmpty()) return "no text";
+                    scanHistory.record(ScanRecord.TYPE_TEXT, text.getText(), null);
+                    return text.getTextBlocks().size() + " blocks: "
+                            + text.getText().replace('\n', ' ');
+                }, () -> TextRecognizerPool.getInstance().release(recognizer));
+                break;
+            }
+            case 2: {
+                // Stored photos aren't latency bound, so accurate mode is worth it here
+                FaceDetector faceDetector = com.google.mlkit.vision.face.FaceDetection.getClient(
+                        new FaceDetectorOptions.Builder()
+                                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_ACCURATE)
+                                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                                .build());
+                runBatch(images, faceDetector::process, FACE_MAX_DIMENSION, (List<Face> faces) -> {
+                    int smiling = 0;
+                    for (Face face : faces) {
+                        Float probability = face.getSmilingProbability();
+                        if (probability != null && probability > 0.5f) smiling++;
+                    }
+                    return faces.size() + " faces, " + smiling + " smiling";
+                }, faceDetector::close);
+                break;
+            }
+            default: {
+                ObjectDetector objectDetector = com.google.mlkit.vision.objects.ObjectDetection.getClient(
+                        new ObjectDetectorOptions.Builder()
+                                .setDetectorMode(ObjectDetectorOptions.SINGLE_IMAGE_MODE)
+                                .enableClassification()
+                                .enableMultipleObjects()
+                                .build());
+                runBatch(images, objectDetector::process, OBJECT_MAX_DIMENSION, (List<DetectedObject> objects) -> {
+                    StringBuilder summary = new StringBuilder();
+                    for (DetectedObject detectedObject : objects) {
+                        for (DetectedObject.Label label : detectedObject.getLabels()) {
+                            scanHistory.record(ScanRecord.TYPE_OBJECT, label.getText(),
+                                    String.format(Locale.US, "Confidence: %.2f", label.getConfidence()));
+                            summary.append(summary.length() > 0 ? ", " : "").append(label.getText());
+                        }
+                    }
+                    return summary.length() > 0 ? summary.toString() : "no labelled objects";
+                }, objectDetector::close);
+                break;
+            }
+        }
+    }
+
+    private <T> void runBatch(List<Uri> images, FramePipeline.Detector<T> detector, int maxDimension,
+                              Summarizer<T> summarizer, Runnable close) {
+        int total = images.size();
+        BatchProcessor<T> processor = new BatchProcessor<>(getContentResolver(), detector, maxDimension);
+        batchProcessor = processor;
+        closeDetector = close;
+
+        processor.start(images, new BatchProcessor.Listener<T>() {
+            @Override
+            public void onImageProcessed(Uri uri, T result) {
+                showProgress(processor, total, uri.getLastPathSegment() + ": " + summarizer.summarize(result));
+            }
+
+            @Override
+            public void onImageFailed(Uri uri, Exception e) {
+                showProgress(processor, total, uri.getLastPathSegment() + ": failed");
+            }
+
+            @Override
+            public void onFinished(BatchProcessor.Stats stats) {
+                String report = String.format(Locale.US,
+                        "Done: %d processed, %d failed in %.1f s (%.1f images/s)\n"
+                                + "Mean decode %d ms, mean inference %d ms",
+                        stats.processed, stats.failed, stats.elapsedMillis / 1000.0,
+                        stats.getImagesPerSecond(), stats.meanDecodeMillis, stats.meanInferenceMillis);
+                Log.d(TAG, report);
+                runOnUiThread(() -> {
+                    progressText.setText(report);
+                    finishBatch();
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs on the sink thread; the UI is refreshed at most every PROGRESS_INTERVAL_MS so a fast
+     * run doesn't flood the main thread
+     */
+    private void showProgress(BatchProcessor<?> processor, int total, String line) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastProgressAt < PROGRESS_INTERVAL_MS) return;
+        lastProgressAt = now;
+
+        BatchProcessor.Stats stats = processor.getStats();
+        String progress = String.format(Locale.US, "%d / %d (%d failed), %.1f images/s",
+                stats.processed + stats.failed, total, stats.failed, stats.getImagesPerSecond());
+        runOnUiThread(() -> {
+            progressText.setText(progress);
+            resultText.setText(line);
+        });
+    }
+
+    private void finishBatch() {
+        if (closeDetector != null) {
+            closeDetector.run();
+            closeDetector = null;
+        }
+        batchProcessor = null;
+        scanHistory.flush();
+        setRunning(false);
+    }
+
+    private void setRunning(boolean running) {
+        modeSpinner.setEnabled(!running);
+        pickImagesButton.setEnabled(!running);
+        pickFolderButton.setEnabled(!running);
+        cancelButton.setEnabled(running);
+    }
+
+    /**
+     * Image documents directly inside the picked folder
+     */
+    private List<Uri> listImages(Uri treeUri) {
+        List<Uri> images = new ArrayList<>();
+        Uri childrenUri = DocumentsContract.buildChildDocumentsUriUsingTree(
+                treeUri, DocumentsContract.getTreeDocumentId(treeUri));
+        String[] projection = {
+                DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_MIME_TYPE
+        };
+        try (Cursor cursor = getContentResolver().query(childrenUri, projection, null, null, null)) {
+            if (cursor == null) return images;
+            while (cursor.moveToNext()) {
+                String mimeType = cursor.getString(1);
+                if (mimeType != null && mimeType.startsWith("image/")) {
+                    images.add(DocumentsContract.buildDocumentUriUsingTree(treeUri, cursor.getString(0)));
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to list " + treeUri, e);
+        }
+        return images;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (batchProcessor != null) {
+            batchProcessor.cancel();
+        }
+        listingExecutor.shutdown();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.a22f3272smd_project;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.mlkit.vision.common.InputImage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a detector over a list of stored images.
+ *
+ * Three stages: a pool of decode threads (each image downsampled to the detector's useful
+ * size), ML Kit inference, and a single sink thread that receives results in completion order.
+ * A semaphore bounds how many images are decoded but not yet finished, which caps memory no
+ * matter how many images are queued.
+ */
+public class BatchProcessor<T> {
+
+    private static final String TAG = "BatchProcessor";
+
+    /**
+     * Called on the sink thread
+     */
+    public interface Listener<T> {
+        void onImageProcessed(Uri uri, T result);
+
+        void onImageFailed(Uri uri, Exception e);
+
+        void onFinished(Stats stats);
+    }
+
+    /**
+     * Aggregate numbers for a finished (or cancelled) run
+     */
+    public static final class Stats {
+        public final int processed;
+        public final int failed;
+        public final long elapsedMillis;
+        public final long meanDecodeMillis;
+        public final long meanInferenceMillis;
+
+        Stats(int processed, int failed, long elapsedMillis, long meanDecodeMillis, long meanInferenceMillis) {
+            this.processed = processed;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+            this.meanDecodeMillis = meanDecodeMillis;
+            this.meanInferenceMillis = meanInferenceMillis;
+        }
+
+        public double getImagesPerSecond() {
+            return elapsedMillis > 0 ? (processed + failed) * 1000.0 / elapsedMillis : 0;
+        }
+    }
+
+    private final ContentResolver contentResolver;
+    private final FramePipeline.Detector<T> detector;
+    private final int maxDimension;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    private final ExecutorService decodeExecutor;
+    private final ExecutorService sinkExecutor = Executors.newSingleThreadExecutor();
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong decodeNanos = new AtomicLong();
+    private final AtomicLong inferenceNanos = new AtomicLong();
+    private volatile boolean cancelled = false;
+    private long startNanos;
+
+    /**
+     * @param maxDimension longest side, in pixels, the detector needs; larger images are
+     *                     downsampled while decoding
+     */
+    public BatchProcessor(ContentResolver contentResolver, FramePipeline.Detector<T> detector, int maxDimension) {
+        this.contentResolver = contentResolver;
+        this.detector = detector;
+        this.maxDimension = maxDimension;
+
+        int decodeThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        decodeExecutor = Executors.newFixedThreadPool(decodeThreads);
+        // Enough to keep the decoders and the detector busy at the same time
+        maxInFlight = decodeThreads * 2;
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    public void start(List<Uri> images, Listener<T> listener) {
+        startNanos = System.nanoTime();
+        coordinator.execute(() -> {
+            for (Uri uri : images) {
+                if (cancelled) break;
+                inFlight.acquireUninterruptibly();
+                decodeExecutor.execute(() -> process(uri, listener));
+            }
+
+            // Every image releases its permit after its sink callback, so holding all
+            // of them means the run is complete
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+            sinkExecutor.execute(() -> {
+                listener.onFinished(getStats());
+                shutdown();
+            });
+        });
+    }
+
+    /**
+     * Stops queueing new images; the ones already in flight still finish
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public Stats getStats() {
+        int done = processed.get();
+        int errors = failed.get();
+        int total = Math.max(1, done + errors);
+        return new Stats(done, errors,
+                (System.nanoTime() - startNanos) / 1_000_000,
+                decodeNanos.get() / total / 1_000_000,
+                inferenceNanos.get() / Math.max(1, done) / 1_000_000);
+    }
+
+    private void process(Uri uri, Listener<T> listener) {
+        if (cancelled) {
+            inFlight.release();
+            return;
+        }
+
+        Bitmap bitmap;
+        int rotation;
+        long decodeStart = System.nanoTime();
+        try {
+            rotation = readRotation(uri);
+            bitmap = decodeSampled(uri);
+        } catch (IOException | RuntimeException e) {
+            decodeNanos.addAndGet(System.nanoTime() - decodeStart);
+            sinkExecutor.execute(() -> fail(uri, e, listener));
+            return;
+        }
+        decodeNanos.addAndGet(System.nanoTime() - decodeStart);
+
+        long inferenceStart = System.nanoTime();
+        detector.process(InputImage.fromBitmap(bitmap, rotation))
+                .addOnCompleteListener(sinkExecutor, task -> {
+                    bitmap.recycle();
+                    if (task.isSuccessful()) {
+                        inferenceNanos.addAndGet(System.nanoTime() - inferenceStart);
+                        processed.incrementAndGet();
+                        listener.onImageProcessed(uri, task.getResult());
+                        inFlight.release();
+                    } else {
+                        fail(uri, task.getException(), listener);
+                    }
+                });
+    }
+
+    private void fail(Uri uri, Exception e, Listener<T> listener) {
+        Log.e(TAG, "Failed to process " + uri, e);
+        failed.incrementAndGet();
+        listener.onImageFailed(uri, e);
+        inFlight.release();
+    }
+
+    /**
+     * Decodes at the largest power-of-two reduction that still keeps the longest side at or
+     * above maxDimension, so the full-size bitmap is never allocated
+     */
+    private Bitmap decodeSampled(Uri uri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(uri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a decodable image");
+        }
+
+        int longestSide = Math.max(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (longestSide / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try (InputStream in = open(uri)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) {
+                throw new IOException("Not a decodable image");
+            }
+            return bitmap;
+        }
+    }
+
+    private int readRotation(Uri uri) throws IOException {
+        try (InputStream in = open(uri)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private InputStream open(Uri uri) throws IOException {
+        InputStream in = contentResolver.openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        return in;
+    }
+
+    private void shutdown() {
+        coordinator.shutdown();
+        decodeExecutor.shutdown();
+        sinkExecutor.shutdown();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * Draws a set of labelled boxes for an overlay view.
+ *
+ * Boxes are batched into a single drawLines call instead of one drawRect each, and boxes that
+ * can't be seen are culled, both once per content change. On API 29+ with a hardware canvas the
+ * whole batch is recorded into a RenderNode, so a redraw with unchanged content only replays
+ * the display list and its cost stays flat however many boxes there are. Elsewhere the batch
+ * is issued directly, with a label paint that has no shadow layer, which software rendering
+ * has to blur per glyph.
+ */
+final class BoxLabelRenderer {
+
+    private final Paint boxPaint;
+    private final Paint labelPaint;
+    private final Paint plainLabelPaint;
+
+    // Source geometry, owned by the overlay: left, top, right, bottom per box
+    private float[] boxes = new float[0];
+    private String[] labels = new String[0];
+    private int count;
+
+    // Visible boxes as line segments (4 lines, 16 floats per box) and their label anchors
+    private float[] lines = new float[0];
+    private float[] labelPositions = new float[0];
+    private String[] visibleLabels = new String[0];
+    private int visibleCount;
+    private int lineFloats;
+
+    private boolean batchDirty = true;
+    private int batchWidth;
+    private int batchHeight;
+    private DisplayList displayList;
+
+    BoxLabelRenderer(Paint boxPaint, Paint labelPaint) {
+        this.boxPaint = boxPaint;
+        this.labelPaint = labelPaint;
+        this.plainLabelPaint = new Paint(labelPaint);
+        this.plainLabelPaint.clearShadowLayer();
+    }
+
+    /**
+     * Replaces the content; the arrays are read on the next draw
+     */
+    void setContent(float[] boxes, String[] labels, int count) {
+        this.boxes = boxes;
+        this.labels = labels;
+        this.count = count;
+        batchDirty = true;
+    }
+
+    void draw(Canvas canvas, int width, int height) {
+        if (batchDirty || width != batchWidth || height != batchHeight) {
+            buildBatch(width, height);
+        }
+        if (visibleCount == 0) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+            if (displayList == null) {
+                displayList = new DisplayList();
+            }
+            displayList.draw(canvas, this, width, height);
+        } else {
+            drawBatch(canvas, plainLabelPaint);
+        }
+    }
+
+    private void buildBatch(int width, int height) {
+        batchWidth = width;
+        batchHeight = height;
+        batchDirty = false;
+        if (displayList != null) {
+            displayList.invalidate();
+        }
+
+        if (lines.length < count * 16) {
+            lines = new float[count * 16];
+            labelPositions = new float[count * 2];
+            visibleLabels = new String[count];
+        }
+
+        // Labels are drawn above their box, so keep boxes whose label is still on screen
+        float labelHeight = labelPaint.getTextSize();
+        visibleCount = 0;
+        lineFloats = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            float left = boxes[offset];
+            float top = boxes[offset + 1];
+            float right = boxes[offset + 2];
+            float bottom = boxes[offset + 3];
+
+            // Skip boxes entirely outside the visible area
+            if (Math.max(left, right) < 0 || Math.min(left, right) > width
+                    || Math.max(top, bottom) < 0 || Math.min(top, bottom) - labelHeight > height) {
+                continue;
+            }
+
+            lineFloats = addLine(lineFloats, left, top, right, top);
+            lineFloats = addLine(lineFloats, right, top, right, bottom);
+            lineFloats = addLine(lineFloats, right, bottom, left, bottom);
+            lineFloats = addLine(lineFloats, left, bottom, left, top);
+
+            labelPositions[visibleCount * 2] = left;
+            labelPositions[visibleCount * 2 + 1] = top - 5;
+            visibleLabels[visibleCount] = labels[i];
+            visibleCount++;
+        }
+    }
+
+    private int addLine(int offset, float x0, float y0, float x1, float y1) {
+        lines[offset] = x0;
+        lines[offset + 1] = y0;
+        lines[offset + 2] = x1;
+        lines[offset + 3] = y1;
+        return offset + 4;
+    }
+
+    private void drawBatch(Canvas canvas, Paint textPaint) {
+        canvas.drawLines(lines, 0, lineFloats, boxPaint);
+        for (int i = 0; i < visibleCount; i++) {
+            String label = visibleLabels[i];
+            if (label != null) {
+                canvas.drawText(label, labelPositions[i * 2], labelPositions[i * 2 + 1], textPaint);
+            }
+        }
+    }
+
+    /**
+     * RenderNode holder, in its own class so RenderNode is only loaded on API 29+
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class DisplayList {
+        private final RenderNode node = new RenderNode("BoxLabelRenderer");
+        private boolean valid = false;
+
+        void invalidate() {
+            valid = false;
+        }
+
+        void draw(Canvas canvas, BoxLabelRenderer renderer, int width, int height) {
+            if (!valid) {
+                node.setPosition(0, 0, width, height);
+                RecordingCanvas recordingCanvas = node.beginRecording(width, height);
+                try {
+                    // Recorded once; the GPU replays the shadowed labels without re-recording
+                    renderer.drawBatch(recordingCanvas, renderer.labelPaint);
+                } finally {
+                    node.endRecording();
+                }
+                valid = true;
+            }
+            canvas.drawRenderNode(node);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.a22f3272smd_project;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One persisted translation, keyed by language pair and normalized source line
+ */
+@Entity(tableName = "translation_cache", indices = {@Index("created_at")})
+public class CachedTranslation {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "cache_key")
+    public String cacheKey;
+
+    @NonNull
+    public String translation;
+
+    @ColumnInfo(name = "created_at")
+    public long createdAt;
+
+    public CachedTranslation(@NonNull String cacheKey, @NonNull String translation, long createdAt) {
+        this.cacheKey = cacheKey;
+        this.translation = translation;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.a22f3272smd_project;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface CachedTranslationDao {
+
+    /** Batch lookup for every line of a frame; keep the list under SQLite's 999 argument limit */
+    @Query("SELECT * FROM translation_cache WHERE cache_key IN (:keys)")
+    List<CachedTranslation> findAll(List<String> keys);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<CachedTranslation> translations);
+
+    @Query("SELECT COUNT(*) FROM translation_cache")
+    int count();
+
+    /** Keeps the newest {@code keep} rows */
+    @Query("DELETE FROM translation_cache WHERE cache_key NOT IN "
+            + "(SELECT cache_key FROM translation_cache ORDER BY created_at DESC LIMIT :keep)")
+    void trimTo(int keep);
+}
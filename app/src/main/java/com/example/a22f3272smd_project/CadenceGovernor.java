@@ -0,0 +1,89 @@
+package com.example.a22f3272smd_project;
+
+import android.util.Log;
+
+/**
+ * Adapts how often a live detector is fed so end-to-end latency stays within a budget.
+ *
+ * FramePipeline reports the sensor-to-result latency of every completed frame. The governor
+ * keeps a rolling average and adjusts the minimum interval between analyzed frames: it backs
+ * off multiplicatively while the average is over budget (the device is saturated and the
+ * ML Kit queue would only grow), and creeps back additively while there is headroom.
+ *
+ * {@link #shouldProcess} runs on the analysis thread and {@link #onFrameCompleted} on the
+ * main thread; the shared state is a few volatile fields.
+ */
+public class CadenceGovernor {
+
+    private static final String TAG = "CadenceGovernor";
+    // Weight of the newest sample in the rolling average
+    private static final float SMOOTHING = 0.2f;
+    private static final float BACKOFF_FACTOR = 1.5f;
+    private static final long SPEEDUP_STEP_NANOS = 5_000_000L;
+    // Below this share of the budget there is room to analyze more often
+    private static final float HEADROOM = 0.7f;
+
+    private final String name;
+    private final long budgetNanos;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+
+    private volatile long intervalNanos;
+    private volatile long averageLatencyNanos = -1;
+    private volatile long lastAdmittedNanos;
+
+    /**
+     * @param budgetMillis      target sensor-to-result latency
+     * @param minIntervalMillis fastest cadence to allow (0 = every frame)
+     * @param maxIntervalMillis slowest cadence to back off to
+     */
+    public CadenceGovernor(String name, long budgetMillis, long minIntervalMillis, long maxIntervalMillis) {
+        this.name = name;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.minIntervalNanos = minIntervalMillis * 1_000_000L;
+        this.maxIntervalNanos = Math.max(minIntervalMillis, maxIntervalMillis) * 1_000_000L;
+        this.intervalNanos = minIntervalNanos;
+    }
+
+    /**
+     * Whether a frame arriving now should go to the detector
+     */
+    public boolean shouldProcess(long nowNanos) {
+        if (nowNanos - lastAdmittedNanos < intervalNanos) {
+            return false;
+        }
+        lastAdmittedNanos = nowNanos;
+        return true;
+    }
+
+    public void onFrameCompleted(long latencyNanos) {
+        if (latencyNanos < 0) return;
+
+        long average = averageLatencyNanos < 0
+                ? latencyNanos
+                : (long) (averageLatencyNanos + SMOOTHING * (latencyNanos - averageLatencyNanos));
+        averageLatencyNanos = average;
+
+        long interval = intervalNanos;
+        long next = interval;
+        if (average > budgetNanos) {
+            // Start from one step above zero so backing off from "every frame" makes progress
+            next = Math.min(maxIntervalNanos, (long) (Math.max(interval, SPEEDUP_STEP_NANOS) * BACKOFF_FACTOR));
+        } else if (average < budgetNanos * HEADROOM) {
+            next = Math.max(minIntervalNanos, interval - SPEEDUP_STEP_NANOS);
+        }
+
+        if (next != interval) {
+            intervalNanos = next;
+            // Only log crossings of 50 ms boundaries to keep logcat readable
+            if (next / 50_000_000L != interval / 50_000_000L) {
+                Log.d(TAG, name + ": interval " + next / 1_000_000 + " ms, average latency "
+                        + average / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    public long getIntervalMillis() {
+        return intervalNanos / 1_000_000;
+    }
+}
@@ -1,23 +1,26 @@
 package com.example.a22f3272smd_project;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
-import androidx.camera.core.ImageAnalysis;
-import androidx.camera.core.Preview;
-import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
-import androidx.core.content.ContextCompat;
-import com.google.common.util.concurrent.ListenableFuture;
+import androidx.core.content.FileProvider;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.face.Face;
 import com.google.mlkit.vision.face.FaceDetector;
-import com.google.mlkit.vision.face.FaceDetectorOptions;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -25,12 +28,23 @@ import java.util.concurrent.Executors;
 public class FaceDetection extends AppCompatActivity {
 
     private static final String TAG = "FaceDetection";
+    // Roughly the last second of analyzed frames at the governor's usual cadence
+    private static final int RECORDED_FRAMES = 8;
+    private static final long REPLAY_FRAME_DELAY_MS = 150;
     private PreviewView previewView;
     private GraphicOverlay overlay;
     private Button captureFrameButton;
-    private ExecutorService cameraExecutor;
+    private Button replayButton;
+    private Button exportButton;
+    private FramePipeline<List<Face>> framePipeline;
     private FaceDetector faceDetector;
-    private boolean freeze = false;
+    private volatile boolean freeze = false;
+    // NV21 copies of the analyzed frames, so a frozen moment survives its ImageProxy
+    private final FrameRecorder frameRecorder = new FrameRecorder(RECORDED_FRAMES);
+    private List<Nv21Frame> frozenFrames = Collections.emptyList();
+    private int replayGeneration; // Bumped to cancel a running replay
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
     private int cameraFacing = CameraSelector.LENS_FACING_FRONT; // Default to front camera
 
     @Override
@@ -41,92 +55,68 @@ public class FaceDetection extends AppCompatActivity {
         previewView = findViewById(R.id.preview_view);
         overlay = findViewById(R.id.graphic_overlay);
         captureFrameButton = findViewById(R.id.capture_frame);
+        replayButton = findViewById(R.id.replay_button);
+        exportButton = findViewById(R.id.export_frame_button);
 
         // Set camera facing in overlay - add this method to GraphicOverlay class
         if (overlay instanceof GraphicOverlay) {
             ((GraphicOverlay) overlay).setCameraFacing(cameraFacing);
         }
+        // Boxes follow the tracking ID smoothly instead of jumping between results
+        overlay.setSmoothingEnabled(true);
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
+        // Shared, already warmed detector with landmarks, classification and tracking enabled
+        WarmStartManager.getInstance().acquire();
+        faceDetector = WarmStartManager.getInstance().getFaceDetector();
 
-        // Configure the face detector with all features enabled
-        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
-                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
-                .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
-                .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
-                .setMinFaceSize(0.15f) // Adjust if needed for better detection
-                .enableTracking() // Enable face tracking for smoother updates
-                .build();
-
-        faceDetector = com.google.mlkit.vision.face.FaceDetection.getClient(options);
-
-        // Setup freeze frame button
+        // Setup freeze frame button; freezing keeps the recorded frames for replay and export
         captureFrameButton.setOnClickListener(v -> {
             freeze = !freeze;
             captureFrameButton.setText(freeze ? "Resume" : "Freeze Frame");
 
             if (freeze) {
+                frozenFrames = frameRecorder.snapshot();
                 Toast.makeText(this, "Frame frozen", Toast.LENGTH_SHORT).show();
+            } else {
+                releaseFrozenFrames();
             }
+            int visibility = freeze && !frozenFrames.isEmpty() ? View.VISIBLE : View.GONE;
+            replayButton.setVisibility(visibility);
+            exportButton.setVisibility(visibility);
         });
+        replayButton.setOnClickListener(v -> replayFrame(0, ++replayGeneration));
+        exportButton.setOnClickListener(v -> exportFrozenFrame());
 
         startCamera();
     }
 
     private void startCamera() {
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
-
-        cameraProviderFuture.addListener(() -> {
-            try {
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
-
-                // Set up the preview
-                Preview preview = new Preview.Builder().build();
-                preview.setSurfaceProvider(previewView.getSurfaceProvider());
-
-                // Camera selector based on current facing direction
-                CameraSelector cameraSelector = new CameraSelector.Builder()
-                        .requireLensFacing(cameraFacing)
-                        .build();
-
-                // Configure image analysis with latest-only strategy
-                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
-                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
-                        .build();
-
-                imageAnalysis.setAnalyzer(cameraExecutor, image -> {
-                    if (!freeze) {
-                        try {
-                            @SuppressWarnings("UnsafeOptInUsageError")
-                            InputImage inputImage = InputImage.fromMediaImage(
-                                    image.getImage(), image.getImageInfo().getRotationDegrees());
-
-                            faceDetector.process(inputImage)
-                                    .addOnSuccessListener(faces -> {
-                                        processFaceDetectionResults(faces, inputImage.getWidth(), inputImage.getHeight());
-                                        image.close();
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Face detection failed", e);
-                                        image.close();
-                                    });
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error processing image: " + e.getMessage());
-                            image.close();
-                        }
-                    } else {
-                        image.close();
-                    }
-                });
-
-                // Unbind previous use cases before rebinding
-                cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+        if (framePipeline == null) {
+            framePipeline = new FramePipeline<>(this, this, previewView);
+            framePipeline.setMetrics(FrameMetrics.forDetector("face"));
+            overlay.setFrameMetrics(framePipeline.getMetrics());
+            framePipeline.setFrameGate(() -> !freeze);
+            // Smoothing covers the gaps, so the detector can slow down when the device is busy
+            framePipeline.setCadenceGovernor(new CadenceGovernor("face", 120, 0, 500));
+            // Tighter than the other screens: blinks and smiles only change a few cells. Reused
+            // results aren't smoothed, so a fresh one is due before the smoother's track timeout
+            framePipeline.setStaticSceneFilter(new StaticSceneFilter(4, 350));
+            // Just enough pixels for the smallest face the detector is asked to find
+            framePipeline.setAnalysisResolution(AnalysisResolution.forFace(WarmStartManager.MIN_FACE_SIZE));
+            framePipeline.setFrameRecorder(frameRecorder);
+            framePipeline.setDetector(faceDetector::process, (faces, inputImage, reused) -> {
+                // The overlay keeps showing the faces; feeding them again would only re-log them
+                if (!reused) {
+                    processFaceDetectionResults(faces, inputImage.getWidth(), inputImage.getHeight());
+                }
+            });
+        }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Use case binding failed", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+        // Camera selector based on current facing direction
+        framePipeline.setCameraSelector(new CameraSelector.Builder()
+                .requireLensFacing(cameraFacing)
+                .build());
+        framePipeline.start();
     }
 
     /**
@@ -154,6 +144,69 @@ public class FaceDetection extends AppCompatActivity {
         }
     }
 
+    /**
+     * Runs the detector again on the frozen frames, oldest first, from their NV21 copies
+     */
+    private void replayFrame(int index, int generation) {
+        if (generation != replayGeneration || index >= frozenFrames.size()) return;
+
+        Nv21Frame frame = frozenFrames.get(index);
+        frame.retain(); // ML Kit may read the buffer until its task completes
+        InputImage image = frame.toInputImage();
+        faceDetector.process(image)
+                .addOnSuccessListener(faces -> {
+                    if (generation == replayGeneration) {
+                        processFaceDetectionResults(faces, image.getWidth(), image.getHeight());
+                    }
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Replay failed", e))
+                .addOnCompleteListener(task -> {
+                    frame.release();
+                    mainHandler.postDelayed(() -> replayFrame(index + 1, generation), REPLAY_FRAME_DELAY_MS);
+                });
+    }
+
+    /**
+     * Writes the newest frozen frame as a JPEG and offers it to a share target
+     */
+    private void exportFrozenFrame() {
+        if (frozenFrames.isEmpty()) return;
+
+        Nv21Frame frame = frozenFrames.get(frozenFrames.size() - 1);
+        frame.retain();
+        File file = new File(new File(getExternalFilesDir(null), "exports"),
+                "frame_" + System.currentTimeMillis() + ".jpg");
+        exportExecutor.execute(() -> {
+            try {
+                file.getParentFile().mkdirs();
+                frame.writeJpeg(file, 90);
+                runOnUiThread(() -> shareFile(file));
+            } catch (IOException e) {
+                Log.e(TAG, "Frame export failed", e);
+                runOnUiThread(() -> Toast.makeText(this, "Export failed", Toast.LENGTH_SHORT).show());
+            } finally {
+                frame.release();
+            }
+        });
+    }
+
+    private void shareFile(File file) {
+        Uri uri = FileProvider.getUriForFile(this, getPackageName() + ".fileprovider", file);
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("image/jpeg");
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(intent, "Share frame"));
+    }
+
+    private void releaseFrozenFrames() {
+        replayGeneration++;
+        for (Nv21Frame frame : frozenFrames) {
+            frame.release();
+        }
+        frozenFrames = Collections.emptyList();
+    }
+
     /**
      * Toggle between front and back camera (if you want to add this feature)
      */
@@ -173,9 +226,10 @@ public class FaceDetection extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        cameraExecutor.shutdown();
-        if (faceDetector != null) {
-            faceDetector.close();
-        }
+        framePipeline.shutdown();
+        releaseFrozenFrames();
+        frameRecorder.clear();
+        exportExecutor.shutdown();
+        WarmStartManager.getInstance().release();
     }
 }
\ No newline at end of file
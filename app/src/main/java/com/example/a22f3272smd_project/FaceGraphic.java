@@ -4,77 +4,145 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.RectF;
 
 import com.google.mlkit.vision.face.Face;
 import com.google.mlkit.vision.face.FaceLandmark;
 
 /**
- * Standalone FaceGraphic class in case you prefer to use it separately from the GraphicOverlay
- * This can be used as an alternative to the inner FaceGraphic class in GraphicOverlay
+ * Draws one detected face: bounding box, landmarks, smile arc and eye openness.
+ *
+ * Instances are reused by GraphicOverlay across frames (matched on the face tracking ID),
+ * so draw() does not allocate: paints are shared, rects are reused and the probability
+ * labels are only rebuilt when their rounded value changes.
+ *
+ * Geometry is drawn from the {@link #box} and {@link #landmarks} arrays rather than from the
+ * Face, so the overlay can substitute a smoothed or predicted position between results.
  */
 public class FaceGraphic extends GraphicOverlay.Graphic {
+    static final int NO_TRACKING_ID = -1;
+
     private static final float FACE_POSITION_RADIUS = 4.0f;
     private static final float ID_TEXT_SIZE = 30.0f;
     private static final float BOX_STROKE_WIDTH = 5.0f;
 
-    private final Paint facePositionPaint;
-    private final Paint landmarkPaint;
-    private final Paint boxPaint;
-    private final Paint idPaint;
-    private final Paint smilePaint;
-    private final Paint eyePaint;
-    private final Face face;
-
-    public FaceGraphic(GraphicOverlay overlay, Face face) {
-        super(overlay);
-        this.face = face;
-
+    private static final int[] LANDMARK_TYPES = {
+            FaceLandmark.LEFT_EYE, FaceLandmark.RIGHT_EYE,
+            FaceLandmark.LEFT_EAR, FaceLandmark.RIGHT_EAR,
+            FaceLandmark.LEFT_CHEEK, FaceLandmark.RIGHT_CHEEK,
+            FaceLandmark.NOSE_BASE,
+            FaceLandmark.MOUTH_LEFT, FaceLandmark.MOUTH_RIGHT, FaceLandmark.MOUTH_BOTTOM
+    };
+    static final int LANDMARK_COUNT = LANDMARK_TYPES.length;
+
+    // Indexes into LANDMARK_TYPES
+    private static final int LEFT_EYE = 0;
+    private static final int RIGHT_EYE = 1;
+    private static final int MOUTH_LEFT = 7;
+    private static final int MOUTH_RIGHT = 8;
+    private static final int MOUTH_BOTTOM = 9;
+
+    // Paints are shared by every face graphic
+    private static final Paint facePositionPaint = new Paint();
+    private static final Paint landmarkPaint = new Paint();
+    private static final Paint boxPaint = new Paint();
+    private static final Paint idPaint = new Paint();
+    private static final Paint smilePaint = new Paint();
+    private static final Paint eyePaint = new Paint();
+
+    static {
         // Face outline
-        boxPaint = new Paint();
         boxPaint.setColor(Color.GREEN);
         boxPaint.setStyle(Paint.Style.STROKE);
         boxPaint.setStrokeWidth(BOX_STROKE_WIDTH);
 
         // Face position dot
-        facePositionPaint = new Paint();
         facePositionPaint.setColor(Color.RED);
         facePositionPaint.setStyle(Paint.Style.FILL);
 
         // Facial landmarks
-        landmarkPaint = new Paint();
         landmarkPaint.setColor(Color.BLUE);
         landmarkPaint.setStyle(Paint.Style.FILL);
         landmarkPaint.setStrokeWidth(5f);
 
         // Text for smile probability
-        idPaint = new Paint();
         idPaint.setColor(Color.WHITE);
         idPaint.setTextSize(ID_TEXT_SIZE);
 
         // Smile indicator
-        smilePaint = new Paint();
         smilePaint.setColor(Color.YELLOW);
         smilePaint.setStyle(Paint.Style.STROKE);
         smilePaint.setStrokeWidth(10f);
 
         // Eye open/closed indicator
-        eyePaint = new Paint();
         eyePaint.setColor(Color.CYAN);
         eyePaint.setStyle(Paint.Style.STROKE);
         eyePaint.setStrokeWidth(5f);
     }
 
+    private final RectF eyeRect = new RectF();
+    private final ProbabilityLabel smileLabel = new ProbabilityLabel("Smile: ");
+    private final ProbabilityLabel leftEyeLabel = new ProbabilityLabel("Left Eye: ");
+    private final ProbabilityLabel rightEyeLabel = new ProbabilityLabel("Right Eye: ");
+    private Face face;
+    private int trackingId = NO_TRACKING_ID;
+
+    // Image-space geometry: left, top, right, bottom and x, y per LANDMARK_TYPES entry
+    final float[] box = new float[4];
+    final float[] landmarks = new float[LANDMARK_COUNT * 2];
+    // Bit i set when LANDMARK_TYPES[i] is present
+    int landmarkMask;
+
+    public FaceGraphic(GraphicOverlay overlay) {
+        super(overlay);
+    }
+
+    public FaceGraphic(GraphicOverlay overlay, Face face) {
+        this(overlay);
+        setFace(face);
+    }
+
+    /**
+     * Points this graphic at a new detection result (called once per analyzed frame)
+     */
+    public void setFace(Face face) {
+        this.face = face;
+        Integer id = face != null ? face.getTrackingId() : null;
+        this.trackingId = id != null ? id : NO_TRACKING_ID;
+        if (face == null) return;
+
+        Rect bounds = face.getBoundingBox();
+        box[0] = bounds.left;
+        box[1] = bounds.top;
+        box[2] = bounds.right;
+        box[3] = bounds.bottom;
+
+        landmarkMask = 0;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            FaceLandmark landmark = face.getLandmark(LANDMARK_TYPES[i]);
+            if (landmark != null) {
+                PointF point = landmark.getPosition();
+                landmarks[i * 2] = point.x;
+                landmarks[i * 2 + 1] = point.y;
+                landmarkMask |= 1 << i;
+            }
+        }
+    }
+
+    int getTrackingId() {
+        return trackingId;
+    }
+
     @Override
     public void draw(Canvas canvas) {
         if (face == null) return;
 
         // Draw face bounding box
-        RectF bounds = new RectF(face.getBoundingBox());
-        float left = translateX(bounds.left);
-        float top = translateY(bounds.top);
-        float right = translateX(bounds.right);
-        float bottom = translateY(bounds.bottom);
+        float left = translateX(box[0]);
+        float top = translateY(box[1]);
+        float right = translateX(box[2]);
+        float bottom = translateY(box[3]);
 
         canvas.drawRect(left, top, right, bottom, boxPaint);
 
@@ -86,26 +154,21 @@ public class FaceGraphic extends GraphicOverlay.Graphic {
         canvas.drawCircle(centerX, centerY, FACE_POSITION_RADIUS, facePositionPaint);
 
         // Draw facial landmarks
-        drawLandmark(canvas, FaceLandmark.LEFT_EYE);
-        drawLandmark(canvas, FaceLandmark.RIGHT_EYE);
-        drawLandmark(canvas, FaceLandmark.LEFT_EAR);
-        drawLandmark(canvas, FaceLandmark.RIGHT_EAR);
-        drawLandmark(canvas, FaceLandmark.LEFT_CHEEK);
-        drawLandmark(canvas, FaceLandmark.RIGHT_CHEEK);
-        drawLandmark(canvas, FaceLandmark.NOSE_BASE);
-        drawLandmark(canvas, FaceLandmark.MOUTH_LEFT);
-        drawLandmark(canvas, FaceLandmark.MOUTH_RIGHT);
-        drawLandmark(canvas, FaceLandmark.MOUTH_BOTTOM);
-
-        // Get eyes positions for drawing eye openness
-        FaceLandmark leftEye = face.getLandmark(FaceLandmark.LEFT_EYE);
-        FaceLandmark rightEye = face.getLandmark(FaceLandmark.RIGHT_EYE);
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            if (hasLandmark(i)) {
+                canvas.drawCircle(
+                        translateX(landmarks[i * 2]),
+                        translateY(landmarks[i * 2 + 1]),
+                        FACE_POSITION_RADIUS,
+                        landmarkPaint);
+            }
+        }
 
         // Draw smile probability
-        if (face.getSmilingProbability() != null) {
-            float smileProb = face.getSmilingProbability();
-            String smileText = String.format("Smile: %.2f", smileProb);
-            canvas.drawText(smileText, left, bottom + 40, idPaint);
+        Float smilingProbability = face.getSmilingProbability();
+        if (smilingProbability != null) {
+            float smileProb = smilingProbability;
+            canvas.drawText(smileLabel.get(smileProb), left, bottom + 40, idPaint);
 
             // Draw mouth based on smile probability
             float mouthWidth = (right - left) * 0.7f;
@@ -115,18 +178,14 @@ public class FaceGraphic extends GraphicOverlay.Graphic {
             float mouthCenterX = centerX;
             float mouthCenterY = bottom - (bottom - top) * 0.3f; // Default position
 
-            FaceLandmark mouthLeft = face.getLandmark(FaceLandmark.MOUTH_LEFT);
-            FaceLandmark mouthRight = face.getLandmark(FaceLandmark.MOUTH_RIGHT);
-            FaceLandmark mouthBottom = face.getLandmark(FaceLandmark.MOUTH_BOTTOM);
-
-            if (mouthLeft != null && mouthRight != null) {
-                mouthCenterX = (translateX(mouthLeft.getPosition().x) + translateX(mouthRight.getPosition().x)) / 2;
+            if (hasLandmark(MOUTH_LEFT) && hasLandmark(MOUTH_RIGHT)) {
+                mouthCenterX = (translateX(landmarks[MOUTH_LEFT * 2]) + translateX(landmarks[MOUTH_RIGHT * 2])) / 2;
 
-                if (mouthBottom != null) {
-                    mouthCenterY = (translateY(mouthLeft.getPosition().y) + translateY(mouthRight.getPosition().y) +
-                            translateY(mouthBottom.getPosition().y)) / 3;
+                if (hasLandmark(MOUTH_BOTTOM)) {
+                    mouthCenterY = (translateY(landmarks[MOUTH_LEFT * 2 + 1]) + translateY(landmarks[MOUTH_RIGHT * 2 + 1]) +
+                            translateY(landmarks[MOUTH_BOTTOM * 2 + 1])) / 3;
                 } else {
-                    mouthCenterY = (translateY(mouthLeft.getPosition().y) + translateY(mouthRight.getPosition().y)) / 2;
+                    mouthCenterY = (translateY(landmarks[MOUTH_LEFT * 2 + 1]) + translateY(landmarks[MOUTH_RIGHT * 2 + 1])) / 2;
                 }
             }
 
@@ -140,58 +199,58 @@ public class FaceGraphic extends GraphicOverlay.Graphic {
         }
 
         // Draw eye open probability
-        if (face.getLeftEyeOpenProbability() != null && leftEye != null) {
-            float leftEyeOpenProb = face.getLeftEyeOpenProbability();
-            String leftEyeText = String.format("Left Eye: %.2f", leftEyeOpenProb);
-            canvas.drawText(leftEyeText, left, bottom + 80, idPaint);
-
-            // Draw left eye openness
-            PointF leftEyePosition = leftEye.getPosition();
-            float eyeX = translateX(leftEyePosition.x);
-            float eyeY = translateY(leftEyePosition.y);
-            float eyeSize = scaleX(15); // Base eye size
-            float openness = Math.max(0.1f, leftEyeOpenProb); // Minimum to ensure visibility
-
-            // Draw eye as ellipse with height based on openness
-            RectF leftEyeRect = new RectF(
-                    eyeX - eyeSize,
-                    eyeY - eyeSize * openness,
-                    eyeX + eyeSize,
-                    eyeY + eyeSize * openness);
-            canvas.drawOval(leftEyeRect, eyePaint);
+        Float leftEyeOpenProbability = face.getLeftEyeOpenProbability();
+        if (leftEyeOpenProbability != null && hasLandmark(LEFT_EYE)) {
+            canvas.drawText(leftEyeLabel.get(leftEyeOpenProbability), left, bottom + 80, idPaint);
+            drawEye(canvas, landmarks[LEFT_EYE * 2], landmarks[LEFT_EYE * 2 + 1], leftEyeOpenProbability);
         }
 
-        if (face.getRightEyeOpenProbability() != null && rightEye != null) {
-            float rightEyeOpenProb = face.getRightEyeOpenProbability();
-            String rightEyeText = String.format("Right Eye: %.2f", rightEyeOpenProb);
-            canvas.drawText(rightEyeText, left, bottom + 120, idPaint);
-
-            // Draw right eye openness
-            PointF rightEyePosition = rightEye.getPosition();
-            float eyeX = translateX(rightEyePosition.x);
-            float eyeY = translateY(rightEyePosition.y);
-            float eyeSize = scaleX(15); // Base eye size
-            float openness = Math.max(0.1f, rightEyeOpenProb); // Minimum to ensure visibility
-
-            // Draw eye as ellipse with height based on openness
-            RectF rightEyeRect = new RectF(
-                    eyeX - eyeSize,
-                    eyeY - eyeSize * openness,
-                    eyeX + eyeSize,
-                    eyeY + eyeSize * openness);
-            canvas.drawOval(rightEyeRect, eyePaint);
+        Float rightEyeOpenProbability = face.getRightEyeOpenProbability();
+        if (rightEyeOpenProbability != null && hasLandmark(RIGHT_EYE)) {
+            canvas.drawText(rightEyeLabel.get(rightEyeOpenProbability), left, bottom + 120, idPaint);
+            drawEye(canvas, landmarks[RIGHT_EYE * 2], landmarks[RIGHT_EYE * 2 + 1], rightEyeOpenProbability);
         }
     }
 
-    private void drawLandmark(Canvas canvas, int landmarkType) {
-        FaceLandmark landmark = face.getLandmark(landmarkType);
-        if (landmark != null) {
-            PointF point = landmark.getPosition();
-            canvas.drawCircle(
-                    translateX(point.x),
-                    translateY(point.y),
-                    FACE_POSITION_RADIUS,
-                    landmarkPaint);
+    private void drawEye(Canvas canvas, float x, float y, float openProbability) {
+        float eyeX = translateX(x);
+        float eyeY = translateY(y);
+        float eyeSize = scaleX(15); // Base eye size
+        float openness = Math.max(0.1f, openProbability); // Minimum to ensure visibility
+
+        // Draw eye as ellipse with height based on openness
+        eyeRect.set(
+                eyeX - eyeSize,
+                eyeY - eyeSize * openness,
+                eyeX + eyeSize,
+                eyeY + eyeSize * openness);
+        canvas.drawOval(eyeRect, eyePaint);
+    }
+
+    private boolean hasLandmark(int index) {
+        return (landmarkMask & (1 << index)) != 0;
+    }
+
+    /**
+     * "Prefix: 0.00" label that is only rebuilt when the value changes at two decimals
+     */
+    static final class ProbabilityLabel {
+        private final String prefix;
+        private int hundredths = -1;
+        private String text;
+
+        ProbabilityLabel(String prefix) {
+            this.prefix = prefix;
+        }
+
+        String get(float probability) {
+            int value = Math.round(probability * 100);
+            if (value != hundredths || text == null) {
+                hundredths = value;
+                int fraction = Math.abs(value % 100);
+                text = prefix + (value / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+            }
+            return text;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package com.example.a22f3272smd_project;
+
+import java.util.Arrays;
+
+/**
+ * Temporal smoothing for tracked faces, keyed by the ML Kit tracking ID.
+ *
+ * Each track runs an alpha-beta filter (a fixed-gain Kalman filter with a constant velocity
+ * model) over its box and landmark coordinates. That takes out the frame-to-frame jitter and
+ * lets the overlay predict where a face is between detector results, so it can redraw at
+ * display rate while inference runs less often.
+ *
+ * All state lives in flat primitive arrays indexed by slot; nothing is allocated per frame.
+ * Not thread safe: GraphicOverlay calls it from the main thread only.
+ */
+public class FaceTrackSmoother {
+
+    /** Values per track: box (left, top, right, bottom) followed by x, y per landmark */
+    static final int VALUES_PER_TRACK = 4 + FaceGraphic.LANDMARK_COUNT * 2;
+
+    private static final int NO_TRACK = Integer.MIN_VALUE;
+    // Position gain: how far each measurement pulls the estimate
+    private static final float ALPHA = 0.6f;
+    // Velocity gain: how quickly a change of speed is picked up
+    private static final float BETA = 0.15f;
+    // A face that misses this many nanos of results is forgotten
+    private static final long TRACK_TIMEOUT_NANOS = 500_000_000L;
+    // Never extrapolate further than this past the last measurement
+    private static final long MAX_PREDICTION_NANOS = 150_000_000L;
+
+    private final int capacity;
+    private final int[] trackIds;
+    private final long[] updatedAt;
+    private final int[] landmarkMasks;
+    private final float[] positions;
+    private final float[] velocities;
+
+    public FaceTrackSmoother(int capacity) {
+        this.capacity = capacity;
+        trackIds = new int[capacity];
+        updatedAt = new long[capacity];
+        landmarkMasks = new int[capacity];
+        positions = new float[capacity * VALUES_PER_TRACK];
+        velocities = new float[capacity * VALUES_PER_TRACK];
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(trackIds, NO_TRACK);
+    }
+
+    /**
+     * Feeds one measurement. box holds 4 values and landmarks LANDMARK_COUNT * 2 values, in
+     * image coordinates; bit i of landmarkMask says whether landmark i was detected.
+     * Returns false if every slot is taken by a live track.
+     */
+    public boolean update(int trackingId, float[] box, float[] landmarks, int landmarkMask, long nowNanos) {
+        int slot = findSlot(trackingId);
+        boolean isNew = false;
+        if (slot < 0) {
+            slot = allocateSlot(nowNanos);
+            if (slot < 0) return false;
+            trackIds[slot] = trackingId;
+            isNew = true;
+        }
+
+        int base = slot * VALUES_PER_TRACK;
+        float dt = (nowNanos - updatedAt[slot]) / 1e9f;
+        int previousMask = landmarkMasks[slot];
+
+        for (int i = 0; i < VALUES_PER_TRACK; i++) {
+            float measured;
+            boolean reset = isNew || dt <= 0;
+            if (i < 4) {
+                measured = box[i];
+            } else {
+                int landmark = (i - 4) >> 1;
+                int bit = 1 << landmark;
+                if ((landmarkMask & bit) == 0) continue; // Keep the last estimate
+                measured = landmarks[i - 4];
+                reset |= (previousMask & bit) == 0;
+            }
+
+            int index = base + i;
+            if (reset) {
+                positions[index] = measured;
+                velocities[index] = 0;
+                continue;
+            }
+            float predicted = positions[index] + velocities[index] * dt;
+            float residual = measured - predicted;
+            positions[index] = predicted + ALPHA * residual;
+            velocities[index] += BETA * residual / dt;
+        }
+
+        landmarkMasks[slot] = isNew ? landmarkMask : previousMask | landmarkMask;
+        updatedAt[slot] = nowNanos;
+        return true;
+    }
+
+    /**
+     * Writes the estimate for the track at nowNanos into box and landmarks. Returns the
+     * landmark mask, or -1 if the track is unknown or has timed out.
+     */
+    public int predict(int trackingId, long nowNanos, float[] box, float[] landmarks) {
+        int slot = findSlot(trackingId);
+        if (slot < 0) return -1;
+
+        long elapsed = nowNanos - updatedAt[slot];
+        if (elapsed > TRACK_TIMEOUT_NANOS) {
+            trackIds[slot] = NO_TRACK;
+            return -1;
+        }
+        float dt = Math.max(0, Math.min(elapsed, MAX_PREDICTION_NANOS)) / 1e9f;
+
+        int base = slot * VALUES_PER_TRACK;
+        for (int i = 0; i < 4; i++) {
+            box[i] = positions[base + i] + velocities[base + i] * dt;
+        }
+        for (int i = 4; i < VALUES_PER_TRACK; i++) {
+            landmarks[i - 4] = positions[base + i] + velocities[base + i] * dt;
+        }
+        return landmarkMasks[slot];
+    }
+
+    private int findSlot(int trackingId) {
+        for (int i = 0; i < capacity; i++) {
+            if (trackIds[i] == trackingId) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * A free slot, or one whose track has timed out
+     */
+    private int allocateSlot(long nowNanos) {
+        for (int i = 0; i < capacity; i++) {
+            if (trackIds[i] == NO_TRACK || nowNanos - updatedAt[i] > TRACK_TIMEOUT_NANOS) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
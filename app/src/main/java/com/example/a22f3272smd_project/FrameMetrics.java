@@ -0,0 +1,253 @@
+package com.example.a22f3272smd_project;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-detector frame metrics: a fixed-bucket latency histogram for each pipeline stage plus
+ * counters for dropped, skipped, static, throttled and failed frames.
+ *
+ * Recording is a couple of atomic increments, so it is safe to call from the analyzer thread,
+ * ML Kit callbacks and onDraw without locking. Buckets are powers of two in milliseconds
+ * (&lt;1, 1-2, 2-4 ... 512-1024, &ge;1024).
+ */
+public final class FrameMetrics {
+
+    public enum Stage {
+        /** Sensor timestamp to analyzer callback */
+        ACQUIRE,
+        /** NV21 copy for a FrameRecorder, when one is set */
+        COPY,
+        /** InputImage.fromMediaImage */
+        CONVERT,
+        /** ML Kit process() until its result arrives */
+        INFERENCE,
+        /** Result handler on the main thread */
+        DISPATCH,
+        /** Overlay onDraw */
+        DRAW
+    }
+
+    private static final int BUCKET_COUNT = 12;
+    private static final int STAGE_COUNT = Stage.values().length;
+    private static final Map<String, FrameMetrics> registry = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(STAGE_COUNT * BUCKET_COUNT);
+    private final AtomicLongArray totalNanos = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong framesThrottled = new AtomicLong();
+    private final AtomicLong framesStatic = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile String analysisSize;
+    private volatile long timeToFirstResultNanos = -1;
+
+    private FrameMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the process-wide metrics for a detector, creating them on first use
+     */
+    public static FrameMetrics forDetector(String name) {
+        FrameMetrics metrics = registry.get(name);
+        if (metrics == null) {
+            metrics = registry.computeIfAbsent(name, FrameMetrics::new);
+        }
+        return metrics;
+    }
+
+    public void record(Stage stage, long nanos) {
+        if (nanos < 0) return;
+        int index = stage.ordinal();
+        buckets.incrementAndGet(index * BUCKET_COUNT + bucketFor(nanos));
+        totalNanos.addAndGet(index, nanos);
+    }
+
+    /** Frame closed by backpressure before reaching the detector */
+    public void recordDropped() {
+        framesDropped.incrementAndGet();
+    }
+
+    /** Frame skipped by a screen's gate (frozen, live mode off...) */
+    public void recordSkipped() {
+        framesSkipped.incrementAndGet();
+    }
+
+    /** Frame held back by the cadence governor */
+    public void recordThrottled() {
+        framesThrottled.incrementAndGet();
+    }
+
+    /** Frame showing an unchanged scene; the previous result was reused */
+    public void recordStatic() {
+        framesStatic.incrementAndGet();
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /** Analysis resolution CameraX bound, reported alongside the latencies */
+    public void setAnalysisSize(int width, int height) {
+        analysisSize = width + "x" + height;
+    }
+
+    /** Screen opened to first detector result, for the most recent opening */
+    public void recordTimeToFirstResult(long nanos) {
+        timeToFirstResultNanos = nanos;
+    }
+
+    public long getTimeToFirstResultMillis() {
+        long nanos = timeToFirstResultNanos;
+        return nanos < 0 ? -1 : nanos / 1_000_000;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    public long getFramesThrottled() {
+        return framesThrottled.get();
+    }
+
+    public long getFramesStatic() {
+        return framesStatic.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getCount(Stage stage) {
+        long count = 0;
+        int base = stage.ordinal() * BUCKET_COUNT;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(base + i);
+        }
+        return count;
+    }
+
+    /**
+     * Upper bound (ms) of the bucket holding the given percentile, -1 if nothing was recorded
+     */
+    public long getPercentileMillis(Stage stage, double percentile) {
+        long count = getCount(stage);
+        if (count == 0) return -1;
+
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        int base = stage.ordinal() * BUCKET_COUNT;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(base + i);
+            if (seen >= target) {
+                return bucketUpperBoundMillis(i);
+            }
+        }
+        return bucketUpperBoundMillis(BUCKET_COUNT - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < totalNanos.length(); i++) {
+            totalNanos.set(i, 0);
+        }
+        framesDropped.set(0);
+        framesSkipped.set(0);
+        framesThrottled.set(0);
+        framesStatic.set(0);
+        failures.set(0);
+        timeToFirstResultNanos = -1;
+    }
+
+    /**
+     * Human-readable summary: per stage count, mean and bucketed p50/p90/p99
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append("[").append(name).append("]");
+        if (analysisSize != null) {
+            out.append(' ').append(analysisSize);
+        }
+        out.append(" dropped=").append(framesDropped.get())
+                .append(" skipped=").append(framesSkipped.get())
+                .append(" throttled=").append(framesThrottled.get())
+                .append(" static=").append(framesStatic.get())
+                .append(" failures=").append(failures.get());
+        long firstResult = getTimeToFirstResultMillis();
+        if (firstResult >= 0) {
+            out.append(" first_result=").append(firstResult).append("ms");
+        }
+        out.append('\n');
+
+        for (Stage stage : Stage.values()) {
+            long count = getCount(stage);
+            if (count == 0) continue;
+
+            long meanMicros = totalNanos.get(stage.ordinal()) / count / 1000;
+            out.append("  ").append(stage.name().toLowerCase())
+                    .append(": n=").append(count)
+                    .append(" mean=").append(meanMicros / 1000).append('.')
+                    .append(String.format("%03d", meanMicros % 1000)).append("ms")
+                    .append(" p50<").append(formatBound(getPercentileMillis(stage, 50)))
+                    .append(" p90<").append(formatBound(getPercentileMillis(stage, 90)))
+                    .append(" p99<").append(formatBound(getPercentileMillis(stage, 99))).append("ms")
+                    .append('\n');
+
+            out.append("    buckets:");
+            int base = stage.ordinal() * BUCKET_COUNT;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                out.append(' ').append(buckets.get(base + i));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    public static String dumpAll() {
+        StringBuilder out = new StringBuilder();
+        for (FrameMetrics metrics : new TreeMap<>(registry).values()) {
+            out.append(metrics.dump());
+        }
+        return out.length() == 0 ? "No frames recorded yet.\n" : out.toString();
+    }
+
+    public static void dumpAllTo(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(dumpAll());
+        }
+    }
+
+    public static void resetAll() {
+        for (FrameMetrics metrics : registry.values()) {
+            metrics.reset();
+        }
+    }
+
+    private static int bucketFor(long nanos) {
+        long millis = nanos / 1_000_000;
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    private static String formatBound(long millis) {
+        return millis == Long.MAX_VALUE ? "inf" : String.valueOf(millis);
+    }
+
+    private static long bucketUpperBoundMillis(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.a22f3272smd_project;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ExperimentalGetImage;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.ResolutionInfo;
+import androidx.camera.core.UseCase;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.Task;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.mlkit.vision.common.InputImage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared CameraX frame pipeline for the detector screens.
+ *
+ * Owns camera binding, the analysis executor, backpressure and the ImageProxy lifetime,
+ * so each activity only plugs in its detector and a result handler. Frames are delivered
+ * with STRATEGY_BLOCK_PRODUCER and a queue one deeper than the {@link #setMaxFramesInFlight}
+ * bound (1 by default), so the analyzer keeps seeing camera frames while the detector is
+ * busy; frames beyond the bound are closed straight away and counted as dropped. (With
+ * KEEP_ONLY_LATEST, CameraX would discard them itself and no drop would be visible here.)
+ * With a {@link StaticSceneFilter} set, frames of an unchanged scene skip inference and the
+ * previous result is handed to the result handler again, flagged as reused and no more often
+ * than the cadence governor would have analyzed frames.
+ */
+public class FramePipeline<T> {
+
+    private static final String TAG = "FramePipeline";
+    private static final int DEFAULT_MAX_FRAMES_IN_FLIGHT = 1;
+    private static final long MAX_FRAME_AGE_NANOS = 1_000_000_000L;
+    // Floor for re-delivering a result on static frames, for governors running every frame
+    private static final long MIN_REUSE_INTERVAL_NANOS = 100_000_000L;
+
+    /**
+     * Runs inference on a single frame, e.g. {@code scanner::process}
+     */
+    public interface Detector<T> {
+        Task<T> process(InputImage image);
+    }
+
+    /**
+     * Receives detector results on the main thread. {@code reused} is set when a static scene
+     * got the previous result again instead of a new one; handlers that record results
+     * (exports, history, logs) should skip those.
+     */
+    public interface ResultHandler<T> {
+        void onResult(T result, InputImage image, boolean reused);
+    }
+
+    /**
+     * Lets a screen skip frames (frozen, cooling down...) without running inference
+     */
+    public interface FrameGate {
+        boolean shouldProcess();
+    }
+
+    /**
+     * A delivered result and the image it came from, kept for reuse on static frames. The
+     * image's pixels are released by then; only its size and rotation are meaningful.
+     */
+    private static final class LastResult<T> {
+        final T result;
+        final InputImage image;
+
+        LastResult(T result, InputImage image) {
+            this.result = result;
+            this.image = image;
+        }
+    }
+
+    private final Context context;
+    private final LifecycleOwner lifecycleOwner;
+    private final PreviewView previewView;
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor();
+    private final Executor mainExecutor;
+    private final List<UseCase> extraUseCases = new ArrayList<>();
+    private final AtomicInteger framesInFlight = new AtomicInteger();
+    private volatile long lastLatencyMillis = -1;
+    // Pipelines are built when their screen opens, so this is the start of time-to-first-result
+    private final long createdAtNanos = System.nanoTime();
+    private boolean firstResultRecorded = false;
+    private FrameMetrics metrics = FrameMetrics.forDetector(TAG);
+
+    private CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
+    // Read per frame, so a screen can swap detectors while the camera runs
+    private volatile Detector<T> detector;
+    private ResultHandler<T> resultHandler;
+    private FrameGate frameGate;
+    private CadenceGovernor cadenceGovernor;
+    private AnalysisResolution analysisResolution;
+    private StaticSceneFilter staticSceneFilter;
+    private FrameRecorder frameRecorder;
+    private volatile LastResult<T> lastResult;
+    private final AtomicBoolean reusePending = new AtomicBoolean();
+    // Analysis thread only: when a frame was last sent to the detector or a result reused
+    private long lastDeliveryNanos;
+    private int maxFramesInFlight = DEFAULT_MAX_FRAMES_IN_FLIGHT;
+    // The bound the running analysis queue was sized for; the setter applies on the next start()
+    private volatile int inFlightLimit = DEFAULT_MAX_FRAMES_IN_FLIGHT;
+
+    public FramePipeline(Context context, LifecycleOwner lifecycleOwner, PreviewView previewView) {
+        this.context = context;
+        this.lifecycleOwner = lifecycleOwner;
+        this.previewView = previewView;
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+    }
+
+    public void setCameraSelector(CameraSelector cameraSelector) {
+        this.cameraSelector = cameraSelector;
+    }
+
+    public CameraSelector getCameraSelector() {
+        return cameraSelector;
+    }
+
+    /**
+     * Sets the detector for live analysis. Without one only the preview (and any extra
+     * use cases) are bound.
+     */
+    public void setDetector(Detector<T> detector, ResultHandler<T> resultHandler) {
+        this.detector = detector;
+        this.resultHandler = resultHandler;
+        forgetLastResult();
+    }
+
+    public void setFrameGate(FrameGate frameGate) {
+        this.frameGate = frameGate;
+    }
+
+    /**
+     * Lets the analysis rate follow measured latency instead of taking every frame
+     */
+    public void setCadenceGovernor(CadenceGovernor cadenceGovernor) {
+        this.cadenceGovernor = cadenceGovernor;
+    }
+
+    public CadenceGovernor getCadenceGovernor() {
+        return cadenceGovernor;
+    }
+
+    /**
+     * Analysis size for this detector's workload; CameraX's default is used when unset
+     */
+    public void setAnalysisResolution(AnalysisResolution analysisResolution) {
+        this.analysisResolution = analysisResolution;
+    }
+
+    /**
+     * Skips inference while the scene is unchanged and re-delivers the previous result
+     */
+    public void setStaticSceneFilter(StaticSceneFilter staticSceneFilter) {
+        this.staticSceneFilter = staticSceneFilter;
+    }
+
+    public StaticSceneFilter getStaticSceneFilter() {
+        return staticSceneFilter;
+    }
+
+    /**
+     * Keeps NV21 copies of the frames sent to the detector, for freeze, replay or export
+     */
+    public void setFrameRecorder(FrameRecorder frameRecorder) {
+        this.frameRecorder = frameRecorder;
+    }
+
+    /**
+     * How many frames the detector may work on at once (default 1). Also sizes the analysis
+     * queue, so it takes effect on the next {@link #start()}.
+     */
+    public void setMaxFramesInFlight(int maxFramesInFlight) {
+        this.maxFramesInFlight = Math.max(1, maxFramesInFlight);
+    }
+
+    /**
+     * Binds an additional use case (e.g. ImageCapture) alongside the preview
+     */
+    public void addUseCase(UseCase useCase) {
+        extraUseCases.add(useCase);
+    }
+
+    /**
+     * Where per-stage latencies and dropped/skipped/failed counts are recorded
+     */
+    public void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public FrameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Time from frame arrival to detector result for the most recent frame, or -1 if none yet
+     */
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    /**
+     * (Re)binds preview, analysis and extra use cases to the lifecycle owner
+     */
+    public void start() {
+        forgetLastResult();
+        ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
+                ProcessCameraProvider.getInstance(context);
+
+        cameraProviderFuture.addListener(() -> {
+            try {
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+                List<UseCase> useCases = new ArrayList<>();
+                useCases.add(preview);
+                useCases.addAll(extraUseCases);
+
+                ImageAnalysis imageAnalysis = null;
+                if (detector != null) {
+                    inFlightLimit = maxFramesInFlight;
+                    // Frames that arrive while the detector is busy are closed in analyze(),
+                    // so the queue never fills and the next frame analyzed is a fresh one
+                    ImageAnalysis.Builder analysisBuilder = new ImageAnalysis.Builder()
+                            .setBackpressureStrategy(ImageAnalysis.STRATEGY_BLOCK_PRODUCER)
+                            .setImageQueueDepth(inFlightLimit + 1);
+                    if (analysisResolution != null) {
+                        analysisBuilder.setResolutionSelector(analysisResolution.toResolutionSelector());
+                    }
+                    imageAnalysis = analysisBuilder.build();
+                    imageAnalysis.setAnalyzer(analysisExecutor, this::analyze);
+                    useCases.add(imageAnalysis);
+                }
+
+                // Unbind previous use cases before rebinding
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(lifecycleOwner, cameraSelector,
+                        useCases.toArray(new UseCase[0]));
+
+                if (imageAnalysis != null) {
+                    reportAnalysisSize(imageAnalysis);
+                }
+
+            } catch (Exception e) {
+                Log.e(TAG, "Use case binding failed", e);
+            }
+        }, ContextCompat.getMainExecutor(context));
+    }
+
+    @OptIn(markerClass = ExperimentalGetImage.class)
+    private void analyze(@NonNull ImageProxy image) {
+        FrameMetrics metrics = this.metrics;
+        if (frameGate != null && !frameGate.shouldProcess()) {
+            metrics.recordSkipped();
+            image.close();
+            return;
+        }
+
+        if (image.getImage() == null) {
+            image.close();
+            return;
+        }
+
+        // Ahead of the governor, so an unchanged scene doesn't use up an analysis slot
+        long now = System.nanoTime();
+        StaticSceneFilter sceneFilter = staticSceneFilter;
+        if (sceneFilter != null && sceneFilter.isStatic(image, now)) {
+            metrics.recordStatic();
+            image.close();
+            reuseLastResult(now);
+            return;
+        }
+
+        CadenceGovernor governor = cadenceGovernor;
+        if (governor != null && !governor.shouldProcess(now)) {
+            metrics.recordThrottled();
+            image.close();
+            return;
+        }
+
+        // Bound the work handed to the detector; the frame is dropped rather than queued.
+        // Checked after the governor so throttled frames aren't counted twice
+        if (framesInFlight.incrementAndGet() > inFlightLimit) {
+            framesInFlight.decrementAndGet();
+            metrics.recordDropped();
+            image.close();
+            return;
+        }
+
+        if (sceneFilter != null) {
+            sceneFilter.onFrameInferred(now);
+        }
+        lastDeliveryNanos = now;
+
+        long frameAge = frameAgeNanos(image.getImageInfo().getTimestamp());
+        metrics.record(FrameMetrics.Stage.ACQUIRE, frameAge);
+        long start = SystemClock.elapsedRealtime();
+        try {
+            FrameRecorder recorder = frameRecorder;
+            if (recorder != null) {
+                long copyStart = System.nanoTime();
+                recorder.record(image);
+                metrics.record(FrameMetrics.Stage.COPY, System.nanoTime() - copyStart);
+            }
+
+            long convertStart = System.nanoTime();
+            InputImage inputImage = InputImage.fromMediaImage(
+                    image.getImage(), image.getImageInfo().getRotationDegrees());
+            long inferenceStart = System.nanoTime();
+            metrics.record(FrameMetrics.Stage.CONVERT, inferenceStart - convertStart);
+
+            detector.process(inputImage)
+                    .addOnSuccessListener(result -> {
+                        long dispatchStart = System.nanoTime();
+                        metrics.record(FrameMetrics.Stage.INFERENCE, dispatchStart - inferenceStart);
+                        lastLatencyMillis = SystemClock.elapsedRealtime() - start;
+                        if (governor != null) {
+                            // Sensor to result; without a usable sensor timestamp, arrival to result
+                            governor.onFrameCompleted(Math.max(0, frameAge) + dispatchStart - convertStart);
+                        }
+                        if (!firstResultRecorded) {
+                            firstResultRecorded = true;
+                            long firstResult = System.nanoTime() - createdAtNanos;
+                            metrics.recordTimeToFirstResult(firstResult);
+                            Log.d(TAG, "First result after " + firstResult / 1_000_000 + " ms");
+                        }
+                        lastResult = new LastResult<>(result, inputImage);
+                        resultHandler.onResult(result, inputImage, false);
+                        metrics.record(FrameMetrics.Stage.DISPATCH, System.nanoTime() - dispatchStart);
+                    })
+                    .addOnFailureListener(e -> {
+                        metrics.recordFailure();
+                        Log.e(TAG, "Detection failed", e);
+                    })
+                    .addOnCompleteListener(task -> release(image));
+        } catch (Exception e) {
+            metrics.recordFailure();
+            Log.e(TAG, "Error processing image", e);
+            release(image);
+        }
+    }
+
+    /**
+     * A new camera or detector must not be answered with the old setup's result
+     */
+    private void forgetLastResult() {
+        lastResult = null;
+        StaticSceneFilter sceneFilter = staticSceneFilter;
+        if (sceneFilter != null && !analysisExecutor.isShutdown()) {
+            analysisExecutor.execute(sceneFilter::reset);
+        }
+    }
+
+    /**
+     * Hands the previous result to the handler again, at most once per governor interval
+     * (or MIN_REUSE_INTERVAL_NANOS) and with at most one reuse queued at a time
+     */
+    private void reuseLastResult(long nowNanos) {
+        LastResult<T> last = lastResult;
+        if (last == null) return;
+
+        CadenceGovernor governor = cadenceGovernor;
+        long interval = governor != null
+                ? Math.max(MIN_REUSE_INTERVAL_NANOS, governor.getIntervalMillis() * 1_000_000L)
+                : MIN_REUSE_INTERVAL_NANOS;
+        if (nowNanos - lastDeliveryNanos < interval || !reusePending.compareAndSet(false, true)) return;
+        lastDeliveryNanos = nowNanos;
+
+        mainExecutor.execute(() -> {
+            reusePending.set(false);
+            // Dropped if a restart happened in between
+            if (lastResult == last) {
+                resultHandler.onResult(last.result, last.image, true);
+            }
+        });
+    }
+
+    /**
+     * Logs the size CameraX settled on and records it with the metrics, next to the latencies
+     */
+    private void reportAnalysisSize(ImageAnalysis imageAnalysis) {
+        ResolutionInfo resolutionInfo = imageAnalysis.getResolutionInfo();
+        if (resolutionInfo == null) return;
+
+        Size size = resolutionInfo.getResolution();
+        metrics.setAnalysisSize(size.getWidth(), size.getHeight());
+        Log.d(TAG, "Analysis size " + size.getWidth() + "x" + size.getHeight()
+                + (analysisResolution != null ? " for " + analysisResolution : " (CameraX default)"));
+    }
+
+    /**
+     * Age of a frame from its sensor timestamp. CameraX uses either the realtime or the
+     * uptime clock depending on the device, so whichever gives a plausible age is used.
+     */
+    private static long frameAgeNanos(long timestampNanos) {
+        long realtimeAge = SystemClock.elapsedRealtimeNanos() - timestampNanos;
+        if (realtimeAge >= 0 && realtimeAge < MAX_FRAME_AGE_NANOS) {
+            return realtimeAge;
+        }
+        long uptimeAge = System.nanoTime() - timestampNanos;
+        return uptimeAge >= 0 && uptimeAge < MAX_FRAME_AGE_NANOS ? uptimeAge : -1;
+    }
+
+    private void release(ImageProxy image) {
+        framesInFlight.decrementAndGet();
+        image.close();
+    }
+
+    public void shutdown() {
+        analysisExecutor.shutdown();
+    }
+}
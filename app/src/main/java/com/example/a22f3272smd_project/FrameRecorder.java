@@ -0,0 +1,78 @@
+package com.example.a22f3272smd_project;
+
+import androidx.camera.core.ImageProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps NV21 copies of the most recent analyzed frames, e.g. to freeze, replay or export
+ * them after their ImageProxy has been closed. Older frames go back to the pool as new ones
+ * arrive. Frames handed out by {@link #snapshot()} stay valid until the caller releases them.
+ */
+public final class FrameRecorder {
+
+    private final Nv21FramePool pool;
+    private final Nv21Frame[] ring;
+    private int head;
+    private int size;
+
+    /**
+     * @param frames how many recent frames to keep; the pool gets twice that, so a snapshot
+     *               can be held while recording goes on
+     */
+    public FrameRecorder(int frames) {
+        this.ring = new Nv21Frame[frames];
+        this.pool = new Nv21FramePool(frames * 2);
+    }
+
+    /**
+     * Copies the frame; called by FramePipeline on the analysis thread while the image is open
+     */
+    void record(ImageProxy image) {
+        Nv21Frame frame = pool.copy(image);
+        if (frame == null) return;
+
+        Nv21Frame evicted = null;
+        synchronized (this) {
+            if (size == ring.length) {
+                evicted = ring[head];
+                ring[head] = frame;
+                head = (head + 1) % ring.length;
+            } else {
+                ring[(head + size) % ring.length] = frame;
+                size++;
+            }
+        }
+        if (evicted != null) {
+            evicted.release();
+        }
+    }
+
+    /**
+     * The recorded frames, oldest first, each retained for the caller
+     */
+    public synchronized List<Nv21Frame> snapshot() {
+        List<Nv21Frame> frames = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Nv21Frame frame = ring[(head + i) % ring.length];
+            frame.retain();
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % ring.length;
+            ring[index].release();
+            ring[index] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    public long getRefusedCopies() {
+        return pool.getRefusedCopies();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.a22f3272smd_project;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the latest detection result to an overlay once per display frame.
+ *
+ * Producers (any thread) publish an immutable snapshot with an atomic swap; the consumer runs
+ * on the main thread from a Choreographer frame callback and only ever sees the newest
+ * snapshot. A burst of results between two vsyncs collapses into one update, and the overlay's
+ * own state is only touched on the main thread, so it needs no locking.
+ */
+final class FrameSnapshotChannel<T> implements Choreographer.FrameCallback {
+
+    interface Consumer<T> {
+        void accept(T snapshot);
+    }
+
+    private final Consumer<T> consumer;
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong superseded = new AtomicLong();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    FrameSnapshotChannel(Consumer<T> consumer) {
+        this.consumer = consumer;
+    }
+
+    void publish(T snapshot) {
+        if (latest.getAndSet(snapshot) != null) {
+            // The previous one was never shown
+            superseded.incrementAndGet();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                Choreographer.getInstance().postFrameCallback(this);
+            } else {
+                mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(this));
+            }
+        }
+    }
+
+    /**
+     * Snapshots replaced by a newer one before a frame could show them
+     */
+    long getSuperseded() {
+        return superseded.get();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Cleared before taking the snapshot so a concurrent publish schedules another frame
+        scheduled.set(false);
+        T snapshot = latest.getAndSet(null);
+        if (snapshot != null) {
+            consumer.accept(snapshot);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.a22f3272smd_project;
+
+import android.os.Bundle;
+import android.widget.CheckBox;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.view.PreviewView;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+/**
+ * Barcode, text and face detection on one camera session: each frame goes to all enabled
+ * detectors in parallel and the joined result is drawn on a single overlay.
+ */
+public class FusedDetectionActivity extends AppCompatActivity {
+
+    private TextView resultText;
+    private FusedOverlay overlay;
+    private FramePipeline<FusedFrame> framePipeline;
+    private FusedDetector fusedDetector;
+    private TextRecognizerPool.PooledRecognizer textRecognizer;
+    private ScanHistoryWriter scanHistory;
+    private final BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, 2000);
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_fused_detection);
+        scanHistory = ScanHistoryWriter.getInstance(this);
+
+        PreviewView previewView = findViewById(R.id.preview_view);
+        overlay = findViewById(R.id.fused_overlay);
+        resultText = findViewById(R.id.text_output);
+        CheckBox barcodeCheck = findViewById(R.id.barcode_check);
+        CheckBox textCheck = findViewById(R.id.text_check);
+        CheckBox faceCheck = findViewById(R.id.face_check);
+
+        WarmStartManager warmStart = WarmStartManager.getInstance();
+        warmStart.acquire();
+        textRecognizer = TextRecognizerPool.getInstance().acquire(TextRecognizerOptions.DEFAULT_OPTIONS);
+        fusedDetector = new FusedDetector(warmStart.getBarcodeScanner(), textRecognizer, warmStart.getFaceDetector());
+
+        barcodeCheck.setOnCheckedChangeListener((button, checked) -> fusedDetector.setBarcodeEnabled(checked));
+        textCheck.setOnCheckedChangeListener((button, checked) -> fusedDetector.setTextEnabled(checked));
+        faceCheck.setOnCheckedChangeListener((button, checked) -> fusedDetector.setFaceEnabled(checked));
+
+        framePipeline = new FramePipeline<>(this, this, previewView);
+        framePipeline.setMetrics(FrameMetrics.forDetector("fused"));
+        overlay.setFrameMetrics(framePipeline.getMetrics());
+        // A frame costs the slowest of the three detectors, so the budget is wider than on single-detector screens
+        framePipeline.setCadenceGovernor(new CadenceGovernor("fused", 250, 0, 1000));
+        framePipeline.setStaticSceneFilter(new StaticSceneFilter(8, 1000));
+        // Text needs the most pixels of the three
+        framePipeline.setAnalysisResolution(AnalysisResolution.forText(0.025f));
+        framePipeline.setDetector(fusedDetector, (frame, image, reused) -> handleResult(frame, reused));
+        framePipeline.start();
+    }
+
+    private void handleResult(FusedFrame frame, boolean reused) {
+        overlay.setFrame(frame);
+
+        StringBuilder summary = new StringBuilder();
+        for (Barcode barcode : frame.barcodes) {
+            String value = barcode.getRawValue();
+            if (value == null) continue;
+            // Misread product codes are neither recorded nor shown, as on the barcode screen
+            BarcodePayload payload = BarcodeClassifier.classify(value, barcode.getFormat());
+            if (!payload.isValid()) continue;
+            if (reused) {
+                // Still in view; renew its window so it isn't recorded again on cooldown
+                deduplicator.touch(value);
+            } else if (deduplicator.accept(value)) {
+                scanHistory.record(ScanRecord.TYPE_BARCODE, value, payload.type.name());
+            }
+            summary.append("Barcode: ").append(value).append('\n');
+        }
+
+        int lines = 0;
+        for (int i = 0; i < frame.getTextBlocks().size(); i++) {
+            lines += frame.getTextBlocks().get(i).getLines().size();
+        }
+        summary.append("Text lines: ").append(lines)
+                .append(", Faces: ").append(frame.faces.size()).append('\n');
+        summary.append("Barcode ").append(formatMillis(frame.barcodeNanos))
+                .append(", text ").append(formatMillis(frame.textNanos))
+                .append(", face ").append(formatMillis(frame.faceNanos))
+                .append(", frame ").append(framePipeline.getLastLatencyMillis()).append(" ms");
+        resultText.setText(summary.toString());
+    }
+
+    private static String formatMillis(long nanos) {
+        return nanos < 0 ? "off" : nanos / 1_000_000 + " ms";
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        framePipeline.shutdown();
+        fusedDetector.close();
+        TextRecognizerPool.getInstance().release(textRecognizer);
+        WarmStartManager.getInstance().release();
+        scanHistory.flush();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.a22f3272smd_project;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.text.Text;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs barcode, text and face detection on the same InputImage in parallel and joins the
+ * three results into one {@link FusedFrame}.
+ *
+ * The frame is converted once and the three ML Kit clients work on it concurrently, so a
+ * frame costs roughly the slowest detector instead of the sum. The returned task completes
+ * when all enabled detectors have finished, which is when FramePipeline releases the frame.
+ */
+public class FusedDetector implements FramePipeline.Detector<FusedFrame> {
+
+    private static final String TAG = "FusedDetector";
+    // Runs completion listeners inline so timings are taken when each detector finishes
+    private static final Executor DIRECT = Runnable::run;
+
+    private final BarcodeScanner barcodeScanner;
+    private final TextRecognizerPool.PooledRecognizer textRecognizer;
+    private final FaceDetector faceDetector;
+    private final ExecutorService joinExecutor = Executors.newSingleThreadExecutor();
+
+    private volatile boolean barcodeEnabled = true;
+    private volatile boolean textEnabled = true;
+    private volatile boolean faceEnabled = true;
+
+    public FusedDetector(BarcodeScanner barcodeScanner, TextRecognizerPool.PooledRecognizer textRecognizer,
+                         FaceDetector faceDetector) {
+        this.barcodeScanner = barcodeScanner;
+        this.textRecognizer = textRecognizer;
+        this.faceDetector = faceDetector;
+    }
+
+    public void setBarcodeEnabled(boolean enabled) {
+        barcodeEnabled = enabled;
+    }
+
+    public void setTextEnabled(boolean enabled) {
+        textEnabled = enabled;
+    }
+
+    public void setFaceEnabled(boolean enabled) {
+        faceEnabled = enabled;
+    }
+
+    @Override
+    public Task<FusedFrame> process(InputImage image) {
+        long start = System.nanoTime();
+        // Completion times per detector: barcode, text, face
+        long[] finishedAt = {-1, -1, -1};
+
+        Task<List<Barcode>> barcodes = barcodeEnabled
+                ? timed(barcodeScanner.process(image), finishedAt, 0)
+                : Tasks.forResult(null);
+        Task<Text> text = textEnabled
+                ? timed(textRecognizer.process(image), finishedAt, 1)
+                : Tasks.forResult(null);
+        Task<List<Face>> faces = faceEnabled
+                ? timed(faceDetector.process(image), finishedAt, 2)
+                : Tasks.forResult(null);
+
+        // ML Kit reports coordinates in the upright image
+        int rotation = image.getRotationDegrees();
+        boolean swap = rotation == 90 || rotation == 270;
+        int width = swap ? image.getHeight() : image.getWidth();
+        int height = swap ? image.getWidth() : image.getHeight();
+
+        return Tasks.whenAllComplete(barcodes, text, faces).continueWith(joinExecutor, all -> new FusedFrame(
+                resultOrNull(barcodes), resultOrNull(text), resultOrNull(faces), width, height,
+                elapsed(start, finishedAt[0]), elapsed(start, finishedAt[1]), elapsed(start, finishedAt[2])));
+    }
+
+    public void close() {
+        joinExecutor.shutdown();
+    }
+
+    private static <R> Task<R> timed(Task<R> task, long[] finishedAt, int index) {
+        return task.addOnCompleteListener(DIRECT, done -> finishedAt[index] = System.nanoTime());
+    }
+
+    private static <R> R resultOrNull(Task<R> task) {
+        if (task.isSuccessful()) {
+            return task.getResult();
+        }
+        Log.e(TAG, "Detector failed", task.getException());
+        return null;
+    }
+
+    private static long elapsed(long start, long finishedAt) {
+        return finishedAt < 0 ? -1 : finishedAt - start;
+    }
+}
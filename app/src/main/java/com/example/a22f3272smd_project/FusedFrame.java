@@ -0,0 +1,43 @@
+package com.example.a22f3272smd_project;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.text.Text;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Joined barcode, text and face results for one camera frame. A detector that failed
+ * contributes an empty result; one that was disabled also has a latency of -1.
+ */
+public final class FusedFrame {
+
+    public final List<Barcode> barcodes;
+    public final Text text;
+    public final List<Face> faces;
+
+    // Upright image size the result coordinates refer to
+    public final int imageWidth;
+    public final int imageHeight;
+
+    public final long barcodeNanos;
+    public final long textNanos;
+    public final long faceNanos;
+
+    FusedFrame(List<Barcode> barcodes, Text text, List<Face> faces, int imageWidth, int imageHeight,
+               long barcodeNanos, long textNanos, long faceNanos) {
+        this.barcodes = barcodes != null ? barcodes : Collections.emptyList();
+        this.text = text;
+        this.faces = faces != null ? faces : Collections.emptyList();
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.barcodeNanos = barcodeNanos;
+        this.textNanos = textNanos;
+        this.faceNanos = faceNanos;
+    }
+
+    public List<Text.TextBlock> getTextBlocks() {
+        return text != null ? text.getTextBlocks() : Collections.emptyList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.a22f3272smd_project;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.text.Text;
+
+import java.util.List;
+
+/**
+ * Single overlay for a {@link FusedFrame}: barcodes in green, text lines in red, faces in yellow.
+ *
+ * Boxes are mapped from the upright image with the same center-crop PreviewView uses, once
+ * per result, into a packed float array that onDraw walks without allocating. Frames are
+ * published from any thread and applied at the next vsync.
+ */
+public class FusedOverlay extends View {
+
+    private static final int KIND_BARCODE = 0;
+    private static final int KIND_TEXT = 1;
+    private static final int KIND_FACE = 2;
+
+    private final Paint[] boxPaints = new Paint[3];
+    private final Paint labelPaint = new Paint();
+
+    // left, top, right, bottom per box, plus its kind and label
+    private float[] boxes = new float[0];
+    private int[] kinds = new int[0];
+    private String[] labels = new String[0];
+    private int boxCount;
+
+    private FusedFrame frame;
+    private boolean mirrored = false;
+    private float scale;
+    private float offsetX;
+    private float offsetY;
+    private FrameMetrics frameMetrics;
+    private final FrameSnapshotChannel<FusedFrame> snapshots = new FrameSnapshotChannel<>(this::applyFrame);
+
+    public FusedOverlay(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        int[] colors = {Color.GREEN, Color.RED, Color.YELLOW};
+        for (int i = 0; i < boxPaints.length; i++) {
+            boxPaints[i] = new Paint();
+            boxPaints[i].setColor(colors[i]);
+            boxPaints[i].setStyle(Paint.Style.STROKE);
+            boxPaints[i].setStrokeWidth(4.0f);
+        }
+        labelPaint.setColor(Color.WHITE);
+        labelPaint.setTextSize(30f);
+    }
+
+    /**
+     * Set for the front camera, whose preview is mirrored
+     */
+    public void setMirrored(boolean mirrored) {
+        this.mirrored = mirrored;
+    }
+
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        this.frameMetrics = frameMetrics;
+    }
+
+    /**
+     * FusedFrame is immutable, so it is handed over as is
+     */
+    public void setFrame(FusedFrame frame) {
+        snapshots.publish(frame);
+    }
+
+    private void applyFrame(FusedFrame frame) {
+        this.frame = frame;
+        rebuildGeometry();
+        invalidate();
+    }
+
+    private void rebuildGeometry() {
+        boxCount = 0;
+        FusedFrame frame = this.frame;
+        if (frame == null || getWidth() == 0 || getHeight() == 0
+                || frame.imageWidth == 0 || frame.imageHeight == 0) {
+            return;
+        }
+
+        // Fill the view and crop the overflow, centered (PreviewView's FILL_CENTER)
+        scale = Math.max((float) getWidth() / frame.imageWidth, (float) getHeight() / frame.imageHeight);
+        offsetX = (getWidth() - frame.imageWidth * scale) / 2;
+        offsetY = (getHeight() - frame.imageHeight * scale) / 2;
+
+        List<Text.TextBlock> blocks = frame.getTextBlocks();
+        int lineCount = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            lineCount += blocks.get(i).getLines().size();
+        }
+        ensureCapacity(frame.barcodes.size() + lineCount + frame.faces.size());
+
+        for (int i = 0; i < frame.barcodes.size(); i++) {
+            Barcode barcode = frame.barcodes.get(i);
+            addBox(barcode.getBoundingBox(), KIND_BARCODE, barcode.getDisplayValue());
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            List<Text.Line> lines = blocks.get(i).getLines();
+            for (int j = 0; j < lines.size(); j++) {
+                addBox(lines.get(j).getBoundingBox(), KIND_TEXT, lines.get(j).getText());
+            }
+        }
+        for (int i = 0; i < frame.faces.size(); i++) {
+            Face face = frame.faces.get(i);
+            Integer trackingId = face.getTrackingId();
+            addBox(face.getBoundingBox(), KIND_FACE, trackingId != null ? "Face #" + trackingId : "Face");
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (kinds.length < count) {
+            boxes = new float[count * 4];
+            kinds = new int[count];
+            labels = new String[count];
+        }
+    }
+
+    private void addBox(Rect rect, int kind, String label) {
+        if (rect == null) return;
+
+        float left = mapX(mirrored ? rect.right : rect.left);
+        float right = mapX(mirrored ? rect.left : rect.right);
+        int offset = boxCount * 4;
+        boxes[offset] = left;
+        boxes[offset + 1] = rect.top * scale + offsetY;
+        boxes[offset + 2] = right;
+        boxes[offset + 3] = rect.bottom * scale + offsetY;
+        kinds[boxCount] = kind;
+        labels[boxCount] = label;
+        boxCount++;
+    }
+
+    private float mapX(float x) {
+        float mapped = x * scale + offsetX;
+        return mirrored ? getWidth() - mapped : mapped;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        long drawStart = System.nanoTime();
+        for (int i = 0; i < boxCount; i++) {
+            int offset = i * 4;
+            canvas.drawRect(boxes[offset], boxes[offset + 1], boxes[offset + 2], boxes[offset + 3],
+                    boxPaints[kinds[i]]);
+            if (labels[i] != null) {
+                canvas.drawText(labels[i], boxes[offset], boxes[offset + 1] - 6, labelPaint);
+            }
+        }
+        if (frameMetrics != null) {
+            frameMetrics.record(FrameMetrics.Stage.DRAW, System.nanoTime() - drawStart);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuildGeometry();
+    }
+}
@@ -1,31 +1,71 @@
 package com.example.a22f3272smd_project;
 
 import com.google.mlkit.vision.face.Face;
-import com.google.mlkit.vision.face.FaceLandmark;
 
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.PointF;
-import android.graphics.Rect;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.View;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Face overlay. Results may be published from any thread with {@link #setFaces}; they are
+ * applied on the main thread at the next vsync, so every field below is main-thread only.
+ */
 public class GraphicOverlay extends View {
     private final List<Graphic> graphics = new ArrayList<>();
+    // Face graphics are reused across frames instead of being rebuilt for every result
+    private List<FaceGraphic> faceGraphics = new ArrayList<>();
+    private List<FaceGraphic> previousFaceGraphics = new ArrayList<>();
+    private final List<FaceGraphic> graphicPool = new ArrayList<>();
     private List<Face> faces;
     private int imageWidth;
     private int imageHeight;
     private float scaleX;
     private float scaleY;
     private int cameraFacing = 1; // Default to front camera (LENS_FACING_FRONT)
+    private FrameMetrics frameMetrics;
+    // Tracked faces are filtered and redrawn at display rate between detector results
+    private final FaceTrackSmoother smoother = new FaceTrackSmoother(16);
+    private boolean smoothingEnabled = false;
+    private final FrameSnapshotChannel<FaceSnapshot> snapshots = new FrameSnapshotChannel<>(this::applySnapshot);
+
+    /**
+     * Immutable detector output for one frame
+     */
+    static final class FaceSnapshot {
+        final List<Face> faces;
+        final int imageWidth;
+        final int imageHeight;
+
+        FaceSnapshot(List<Face> faces, int imageWidth, int imageHeight) {
+            this.faces = faces;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+        }
+    }
 
     public void setCameraFacing(int facing) {
         this.cameraFacing = facing;
+        smoother.clear();
+    }
+
+    /**
+     * Smooths tracked faces (the detector must have tracking enabled) and keeps redrawing them
+     * at display rate, extrapolating their motion until the next result arrives
+     */
+    public void setSmoothingEnabled(boolean smoothingEnabled) {
+        this.smoothingEnabled = smoothingEnabled;
+        smoother.clear();
+    }
+
+    /**
+     * Records onDraw time into the detector's metrics
+     */
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        this.frameMetrics = frameMetrics;
     }
 
     public abstract static class Graphic {
@@ -63,17 +103,43 @@ public class GraphicOverlay extends View {
         super(context, attrs);
     }
 
+    /**
+     * Main thread only
+     */
     public void clear() {
         graphics.clear();
-        postInvalidate();
+        invalidate();
     }
 
+    /**
+     * Main thread only
+     */
     public void add(Graphic graphic) {
         graphics.add(graphic);
     }
 
+    /**
+     * Publishes a detection result; safe from any thread. Only the newest result per display
+     * frame is applied. ML Kit hands out a new list per result, so it is wrapped, not copied.
+     */
     public void setFaces(List<Face> faces, int width, int height) {
-        clear(); // Clear previous graphics
+        snapshots.publish(new FaceSnapshot(Collections.unmodifiableList(faces), width, height));
+    }
+
+    /**
+     * Results that were replaced by a newer one before they could be drawn
+     */
+    public long getSupersededResults() {
+        return snapshots.getSuperseded();
+    }
+
+    /**
+     * Applies a snapshot to the graphics; runs on the main thread from the frame callback
+     */
+    void applySnapshot(FaceSnapshot snapshot) {
+        List<Face> faces = snapshot.faces;
+        int width = snapshot.imageWidth;
+        int height = snapshot.imageHeight;
         this.faces = faces;
         this.imageWidth = width;
         this.imageHeight = height;
@@ -82,139 +148,108 @@ public class GraphicOverlay extends View {
         scaleX = (float) getWidth() / width;
         scaleY = (float) getHeight() / height;
 
-        // Add a new graphic for each face
-        for (Face face : faces) {
-            add(new FaceGraphic(this, face));
+        // Keep last frame's graphics aside so they can be matched to faces by tracking ID
+        List<FaceGraphic> previous = faceGraphics;
+        faceGraphics = previousFaceGraphics;
+        previousFaceGraphics = previous;
+        faceGraphics.clear();
+
+        // First pass: faces that were already on screen keep their graphic (and cached labels)
+        for (int i = 0; i < faces.size(); i++) {
+            Integer trackingId = faces.get(i).getTrackingId();
+            faceGraphics.add(trackingId != null ? takeTracked(previous, trackingId) : null);
         }
 
-        invalidate(); // Trigger redraw
-    }
+        // Second pass: new or untracked faces reuse a leftover or pooled graphic
+        long now = System.nanoTime();
+        for (int i = 0; i < faces.size(); i++) {
+            FaceGraphic graphic = faceGraphics.get(i);
+            if (graphic == null) {
+                graphic = obtainGraphic(previous);
+                faceGraphics.set(i, graphic);
+            }
+            graphic.setFace(faces.get(i));
+            if (smoothingEnabled && graphic.getTrackingId() != FaceGraphic.NO_TRACKING_ID) {
+                smoother.update(graphic.getTrackingId(), graphic.box, graphic.landmarks,
+                        graphic.landmarkMask, now);
+            }
+        }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        for (Graphic graphic : graphics) {
-            graphic.draw(canvas);
+        // Whatever was not matched goes back to the pool
+        for (int i = 0; i < previous.size(); i++) {
+            FaceGraphic graphic = previous.get(i);
+            if (graphic != null) {
+                graphic.setFace(null);
+                graphicPool.add(graphic);
+            }
         }
+        previous.clear();
+
+        graphics.clear();
+        for (int i = 0; i < faceGraphics.size(); i++) {
+            graphics.add(faceGraphics.get(i));
+        }
+
+        invalidate(); // Trigger redraw
     }
 
-    // Inner class to handle face graphic rendering
-    private static class FaceGraphic extends Graphic {
-        private static final float FACE_POSITION_RADIUS = 4.0f;
-        private static final float ID_TEXT_SIZE = 30.0f;
-        private static final float BOX_STROKE_WIDTH = 5.0f;
-
-        private final Paint facePositionPaint;
-        private final Paint landmarkPaint;
-        private final Paint boxPaint;
-        private final Paint idPaint;
-        private final Paint smilePaint;
-        private final Face face;
-
-        FaceGraphic(GraphicOverlay overlay, Face face) {
-            super(overlay);
-            this.face = face;
-
-            // Face outline
-            boxPaint = new Paint();
-            boxPaint.setColor(Color.GREEN);
-            boxPaint.setStyle(Paint.Style.STROKE);
-            boxPaint.setStrokeWidth(BOX_STROKE_WIDTH);
-
-            // Face position dot
-            facePositionPaint = new Paint();
-            facePositionPaint.setColor(Color.RED);
-            facePositionPaint.setStyle(Paint.Style.FILL);
-
-            // Facial landmarks
-            landmarkPaint = new Paint();
-            landmarkPaint.setColor(Color.BLUE);
-            landmarkPaint.setStyle(Paint.Style.FILL);
-            landmarkPaint.setStrokeWidth(5f);
-
-            // Text for smile probability
-            idPaint = new Paint();
-            idPaint.setColor(Color.WHITE);
-            idPaint.setTextSize(ID_TEXT_SIZE);
-
-            // Smile indicator
-            smilePaint = new Paint();
-            smilePaint.setColor(Color.YELLOW);
-            smilePaint.setStyle(Paint.Style.STROKE);
-            smilePaint.setStrokeWidth(10f);
-        }
-
-        @Override
-        public void draw(Canvas canvas) {
-            if (face == null) return;
-
-            // Draw face bounding box
-            Rect bounds = face.getBoundingBox();
-            float left = translateX(bounds.left);
-            float top = translateY(bounds.top);
-            float right = translateX(bounds.right);
-            float bottom = translateY(bounds.bottom);
-
-            // For front camera, we've already flipped in translateX
-            canvas.drawRect(left, top, right, bottom, boxPaint);
-
-            // Draw facial landmarks
-            drawLandmark(canvas, FaceLandmark.LEFT_EYE);
-            drawLandmark(canvas, FaceLandmark.RIGHT_EYE);
-            drawLandmark(canvas, FaceLandmark.LEFT_EAR);
-            drawLandmark(canvas, FaceLandmark.RIGHT_EAR);
-            drawLandmark(canvas, FaceLandmark.LEFT_CHEEK);
-            drawLandmark(canvas, FaceLandmark.RIGHT_CHEEK);
-            drawLandmark(canvas, FaceLandmark.NOSE_BASE);
-            drawLandmark(canvas, FaceLandmark.MOUTH_LEFT);
-            drawLandmark(canvas, FaceLandmark.MOUTH_RIGHT);
-            drawLandmark(canvas, FaceLandmark.MOUTH_BOTTOM);
-
-            // Draw smile probability
-            if (face.getSmilingProbability() != null) {
-                float smileProb = face.getSmilingProbability();
-                String smileText = String.format("Smile: %.2f", smileProb);
-                canvas.drawText(smileText, left, bottom + 40, idPaint);
-
-                // Draw smile indicator - a curved line that gets wider based on smile probability
-                float centerX = (left + right) / 2;
-                float centerY = bottom - 30;
-                float mouthWidth = (right - left) * 0.8f;
-                float smileHeight = mouthWidth * 0.2f * smileProb;
-
-                // Draw a curved line to represent the smile
-                canvas.drawArc(
-                        centerX - mouthWidth/2,
-                        centerY - smileHeight/2,
-                        centerX + mouthWidth/2,
-                        centerY + smileHeight/2,
-                        0, 180, false, smilePaint);
+    private static FaceGraphic takeTracked(List<FaceGraphic> candidates, int trackingId) {
+        for (int i = 0; i < candidates.size(); i++) {
+            FaceGraphic graphic = candidates.get(i);
+            if (graphic != null && graphic.getTrackingId() == trackingId) {
+                candidates.set(i, null);
+                return graphic;
             }
+        }
+        return null;
+    }
 
-            // Draw eye open probability
-            if (face.getLeftEyeOpenProbability() != null) {
-                float leftEyeOpenProb = face.getLeftEyeOpenProbability();
-                String leftEyeText = String.format("Left Eye: %.2f", leftEyeOpenProb);
-                canvas.drawText(leftEyeText, left, bottom + 80, idPaint);
+    private FaceGraphic obtainGraphic(List<FaceGraphic> leftovers) {
+        if (!graphicPool.isEmpty()) {
+            return graphicPool.remove(graphicPool.size() - 1);
+        }
+        for (int i = 0; i < leftovers.size(); i++) {
+            FaceGraphic graphic = leftovers.get(i);
+            if (graphic != null) {
+                leftovers.set(i, null);
+                return graphic;
             }
+        }
+        return new FaceGraphic(this);
+    }
 
-            if (face.getRightEyeOpenProbability() != null) {
-                float rightEyeOpenProb = face.getRightEyeOpenProbability();
-                String rightEyeText = String.format("Right Eye: %.2f", rightEyeOpenProb);
-                canvas.drawText(rightEyeText, left, bottom + 120, idPaint);
-            }
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        long drawStart = System.nanoTime();
+        boolean animating = smoothingEnabled && applySmoothing(drawStart);
+        for (int i = 0; i < graphics.size(); i++) {
+            graphics.get(i).draw(canvas);
+        }
+        if (frameMetrics != null) {
+            frameMetrics.record(FrameMetrics.Stage.DRAW, System.nanoTime() - drawStart);
         }
+        if (animating) {
+            postInvalidateOnAnimation();
+        }
+    }
 
-        private void drawLandmark(Canvas canvas, int landmarkType) {
-            FaceLandmark landmark = face.getLandmark(landmarkType);
-            if (landmark != null) {
-                PointF point = landmark.getPosition();
-                canvas.drawCircle(
-                        translateX(point.x),
-                        translateY(point.y),
-                        FACE_POSITION_RADIUS,
-                        landmarkPaint);
+    /**
+     * Moves tracked face graphics to their estimated position at the given time.
+     * Returns true while any face is still being tracked.
+     */
+    private boolean applySmoothing(long nowNanos) {
+        boolean tracking = false;
+        for (int i = 0; i < faceGraphics.size(); i++) {
+            FaceGraphic graphic = faceGraphics.get(i);
+            if (graphic.getTrackingId() == FaceGraphic.NO_TRACKING_ID) continue;
+
+            int mask = smoother.predict(graphic.getTrackingId(), nowNanos, graphic.box, graphic.landmarks);
+            if (mask >= 0) {
+                graphic.landmarkMask = mask;
+                tracking = true;
             }
         }
+        return tracking;
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.example.a22f3272smd_project;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Running per-code counts for inventory scanning, where every code in a frame is accepted.
+ *
+ * A code held in view is counted once; it counts again after it has been out of view for
+ * the cooldown, like a second box with the same label passing the camera. Codes per second is
+ * measured over the last RATE_WINDOW_MS of counted scans. Main thread only.
+ */
+public final class InventoryTally {
+
+    private static final long RATE_WINDOW_MS = 5000;
+    private static final int RATE_SAMPLES = 512;
+
+    /**
+     * One distinct code and how often it was counted
+     */
+    public static final class Entry {
+        public final String value;
+        public final BarcodePayload.Type type;
+        public int count;
+        public long lastSeenAt;
+
+        Entry(String value, BarcodePayload.Type type) {
+            this.value = value;
+            this.type = type;
+        }
+    }
+
+    private final BarcodeDeduplicator deduplicator;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    // Ring of recent scan times for the codes-per-second rate
+    private final long[] scanTimes = new long[RATE_SAMPLES];
+    private int scanTimesHead;
+    private int scanTimesSize;
+    private long totalScans;
+
+    /**
+     * @param cooldownMillis How long a code must be out of view before it counts again
+     */
+    public InventoryTally(long cooldownMillis) {
+        deduplicator = new BarcodeDeduplicator(256, cooldownMillis);
+    }
+
+    /**
+     * Counts a decoded code; returns true if it was counted, false while it is still in view
+     */
+    public boolean accept(String value, BarcodePayload.Type type, long nowMillis) {
+        if (!deduplicator.accept(value, nowMillis)) {
+            return false;
+        }
+
+        Entry entry = entries.get(value);
+        if (entry == null) {
+            entry = new Entry(value, type);
+            entries.put(value, entry);
+        }
+        entry.count++;
+        entry.lastSeenAt = nowMillis;
+        totalScans++;
+
+        scanTimes[(scanTimesHead + scanTimesSize) % RATE_SAMPLES] = nowMillis;
+        if (scanTimesSize < RATE_SAMPLES) {
+            scanTimesSize++;
+        } else {
+            scanTimesHead = (scanTimesHead + 1) % RATE_SAMPLES;
+        }
+        return true;
+    }
+
+    /**
+     * Keeps a code that is still in view from counting again, without counting it now
+     */
+    public void touch(String value, long nowMillis) {
+        deduplicator.touch(value, nowMillis);
+    }
+
+    /**
+     * Counted scans per second over the last RATE_WINDOW_MS
+     */
+    public float getCodesPerSecond(long nowMillis) {
+        while (scanTimesSize > 0 && nowMillis - scanTimes[scanTimesHead] > RATE_WINDOW_MS) {
+            scanTimesHead = (scanTimesHead + 1) % RATE_SAMPLES;
+            scanTimesSize--;
+        }
+        return scanTimesSize * 1000f / RATE_WINDOW_MS;
+    }
+
+    public int getDistinctCodes() {
+        return entries.size();
+    }
+
+    public long getTotalScans() {
+        return totalScans;
+    }
+
+    /**
+     * Distinct codes in the order they were first counted
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public void clear() {
+        deduplicator.clear();
+        entries.clear();
+        scanTimesHead = 0;
+        scanTimesSize = 0;
+        totalScans = 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.a22f3272smd_project;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+
+/**
+ * Barcode formats an inventory workflow actually uses. The scanner is restricted to them, so
+ * it neither searches for nor misreads symbologies that never appear on the labels.
+ */
+public enum InventoryWorkflow {
+
+    /** Shelf and product labels */
+    RETAIL("Retail", Barcode.FORMAT_EAN_13, Barcode.FORMAT_EAN_8, Barcode.FORMAT_UPC_A, Barcode.FORMAT_UPC_E),
+
+    /** Pallet and carton labels: GS1-128 (SSCC, batch, dates) plus 2D codes */
+    LOGISTICS("Logistics", Barcode.FORMAT_CODE_128, Barcode.FORMAT_DATA_MATRIX, Barcode.FORMAT_QR_CODE,
+            Barcode.FORMAT_EAN_13);
+
+    public final String label;
+    public final int primaryFormat;
+    public final int[] moreFormats;
+
+    InventoryWorkflow(String label, int primaryFormat, int... moreFormats) {
+        this.label = label;
+        this.primaryFormat = primaryFormat;
+        this.moreFormats = moreFormats;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams object detection results to a CSV or JSONL file.
+ *
+ * Each {@link #append} call copies the values and hands them to a single writer thread, which
+ * encodes one line at a time into a direct buffer and writes it to a FileChannel when the buffer
+ * fills. Nothing is accumulated in memory, so a session can run for hours.
+ */
+public final class LabelExporter {
+
+    private static final String TAG = "LabelExporter";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        JSONL("jsonl", "application/x-ndjson");
+
+        public final String extension;
+        public final String mimeType;
+
+        Format(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+    }
+
+    public interface Callback {
+        /** Called on the main thread; file is null if the export failed */
+        void onFinished(File file, long records);
+    }
+
+    private final File file;
+    private final Format format;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicLong recordCount = new AtomicLong();
+    private boolean finished;
+
+    // Only touched on the writer thread
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(128);
+    private FileChannel channel;
+    private boolean failed = false;
+
+    public LabelExporter(File file, Format format) {
+        this.file = file;
+        this.format = format;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getRecordCount() {
+        return recordCount.get();
+    }
+
+    /**
+     * Queues one detection. trackingId is -1 when the detector doesn't track objects.
+     * Ignored after {@link #finish}, e.g. for an ML Kit result landing after onDestroy.
+     */
+    public synchronized void append(long timestampMillis, int trackingId, String label, float confidence, Rect box) {
+        if (finished) return;
+        int left = box.left;
+        int top = box.top;
+        int right = box.right;
+        int bottom = box.bottom;
+        recordCount.incrementAndGet();
+        executor.execute(() -> write(timestampMillis, trackingId, label, confidence, left, top, right, bottom));
+    }
+
+    /**
+     * Writes out everything queued so far, closes the file and stops the writer thread
+     */
+    public synchronized void finish(Callback callback) {
+        if (finished) return;
+        finished = true;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        executor.execute(() -> {
+            boolean ok = close();
+            long records = recordCount.get();
+            mainHandler.post(() -> callback.onFinished(ok ? file : null, records));
+        });
+        executor.shutdown();
+    }
+
+    private void write(long timestampMillis, int trackingId, String label, float confidence,
+                       int left, int top, int right, int bottom) {
+        if (failed) return;
+
+        line.setLength(0);
+        if (format == Format.CSV) {
+            line.append(timestampMillis).append(',')
+                    .append(trackingId).append(',');
+            appendCsv(label);
+            line.append(',').append(String.format(Locale.US, "%.4f", confidence))
+                    .append(',').append(left).append(',').append(top)
+                    .append(',').append(right).append(',').append(bottom);
+        } else {
+            line.append("{\"timestamp\":").append(timestampMillis)
+                    .append(",\"trackingId\":").append(trackingId)
+                    .append(",\"label\":");
+            appendJson(label);
+            line.append(",\"confidence\":").append(String.format(Locale.US, "%.4f", confidence))
+                    .append(",\"box\":[").append(left).append(',').append(top)
+                    .append(',').append(right).append(',').append(bottom).append("]}");
+        }
+        line.append('\n');
+
+        try {
+            encodeLine();
+        } catch (IOException e) {
+            failed = true;
+            Log.e(TAG, "Export to " + file + " failed", e);
+        }
+    }
+
+    private void encodeLine() throws IOException {
+        if (channel == null) {
+            open();
+        }
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drainBuffer();
+            } else {
+                break;
+            }
+        }
+        encoder.reset();
+    }
+
+    private void open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Can't create " + parent);
+        }
+        // FileOutputStream rather than FileChannel.open, which needs API 26
+        channel = new FileOutputStream(file, true).getChannel();
+
+        if (format == Format.CSV && channel.size() == 0) {
+            buffer.put("timestamp,tracking_id,label,confidence,left,top,right,bottom\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private boolean close() {
+        if (channel == null) {
+            return false;
+        }
+        try {
+            if (!failed) {
+                drainBuffer();
+                channel.force(false);
+            }
+            channel.close();
+        } catch (IOException e) {
+            failed = true;
+            Log.e(TAG, "Failed to close " + file, e);
+        }
+        return !failed;
+    }
+
+    private void appendCsv(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendJson(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                    break;
+            }
+        }
+        line.append('"');
+    }
+}
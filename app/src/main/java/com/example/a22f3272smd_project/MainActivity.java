@@ -21,6 +21,19 @@ public class MainActivity extends AppCompatActivity {
         Button faceDetectionBtn = findViewById(R.id.button_face_detection);
         Button barcodeScanningBtn = findViewById(R.id.button_barcode_scanning);
         Button objectDetectionBtn = findViewById(R.id.button_object_detection);
+        Button fusedDetectionBtn = findViewById(R.id.button_fused_detection);
+        Button scanHistoryBtn = findViewById(R.id.button_scan_history);
+        Button batchBtn = findViewById(R.id.button_batch);
+
+        // Hidden debug screen with per-detector frame metrics
+        findViewById(R.id.app_title).setOnLongClickListener(v -> {
+            startActivity(new Intent(MainActivity.this, MetricsActivity.class));
+            return true;
+        });
+
+        // Once the buttons are on screen, open the camera provider and load the detector models
+        // in the background so the first result on each screen doesn't pay for them
+        getWindow().getDecorView().post(() -> WarmStartManager.getInstance().warmUp(this));
 
         textRecognitionBtn.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -49,6 +62,27 @@ public class MainActivity extends AppCompatActivity {
                 startActivity(new Intent(MainActivity.this, ObjectDetection.class));
             }
         });
+
+        fusedDetectionBtn.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(MainActivity.this, FusedDetectionActivity.class));
+            }
+        });
+
+        scanHistoryBtn.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(MainActivity.this, ScanHistoryActivity.class));
+            }
+        });
+
+        batchBtn.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(MainActivity.this, BatchActivity.class));
+            }
+        });
     }
 }
 
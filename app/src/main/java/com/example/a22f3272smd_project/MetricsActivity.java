@@ -0,0 +1,57 @@
+package com.example.a22f3272smd_project;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Debug screen showing the per-detector frame metrics (long-press the title on the main screen)
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    private static final String TAG = "MetricsActivity";
+    private TextView metricsText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        metricsText = findViewById(R.id.metrics_text);
+        Button saveButton = findViewById(R.id.save_button);
+        Button resetButton = findViewById(R.id.reset_button);
+
+        saveButton.setOnClickListener(v -> {
+            File file = new File(getExternalFilesDir(null), "frame_metrics.txt");
+            try {
+                FrameMetrics.dumpAllTo(file);
+                Toast.makeText(this, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save metrics", e);
+                Toast.makeText(this, "Failed to save metrics", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        resetButton.setOnClickListener(v -> {
+            FrameMetrics.resetAll();
+            refresh();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        metricsText.setText(FrameMetrics.dumpAll());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.a22f3272smd_project;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.common.model.DownloadConditions;
+import com.google.mlkit.nl.translate.Translation;
+import com.google.mlkit.nl.translate.Translator;
+import com.google.mlkit.nl.translate.TranslatorOptions;
+
+/**
+ * On-device ML Kit translator for {@link TranslationStage}. The language model is downloaded
+ * on the first translation, on the stage thread, so a cached screen never waits for it.
+ */
+public final class MlKitTranslationBackend implements TranslationStage.Backend {
+
+    private final Translator translator;
+    private boolean modelReady = false;
+
+    /**
+     * @param sourceLanguage a {@code TranslateLanguage} code
+     * @param targetLanguage a {@code TranslateLanguage} code
+     */
+    public MlKitTranslationBackend(String sourceLanguage, String targetLanguage) {
+        translator = Translation.getClient(new TranslatorOptions.Builder()
+                .setSourceLanguage(sourceLanguage)
+                .setTargetLanguage(targetLanguage)
+                .build());
+    }
+
+    @Override
+    public String translate(String text) throws Exception {
+        if (!modelReady) {
+            Tasks.await(translator.downloadModelIfNeeded(new DownloadConditions.Builder().build()));
+            modelReady = true;
+        }
+        return Tasks.await(translator.translate(text));
+    }
+
+    @Override
+    public void close() {
+        translator.close();
+    }
+}
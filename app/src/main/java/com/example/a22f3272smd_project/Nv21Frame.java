@@ -0,0 +1,138 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.media.ExifInterface;
+
+import com.google.mlkit.vision.common.InputImage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A camera frame copied into a pooled direct buffer as NV21 (Y plane, then interleaved VU),
+ * so it can outlive the ImageProxy it came from.
+ *
+ * Frames are reference counted: whoever keeps one calls {@link #retain()} and later
+ * {@link #release()}, and the buffer goes back to its {@link Nv21FramePool} at zero. The
+ * pixels are only valid while a reference is held.
+ */
+public final class Nv21Frame {
+
+    private static final String TAG = "Nv21Frame";
+
+    private final Nv21FramePool pool;
+    private final ByteBuffer buffer;
+    private final AtomicInteger refCount = new AtomicInteger();
+    final int width;
+    final int height;
+    private int rotationDegrees;
+    private long timestampNanos;
+
+    Nv21Frame(Nv21FramePool pool, int width, int height) {
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.buffer = ByteBuffer.allocateDirect(width * height * 3 / 2);
+    }
+
+    /**
+     * Hands the frame out with a single reference, after the pool filled the buffer
+     */
+    void onCopied(int rotationDegrees, long timestampNanos) {
+        this.rotationDegrees = rotationDegrees;
+        this.timestampNanos = timestampNanos;
+        refCount.set(1);
+    }
+
+    ByteBuffer getWritableBuffer() {
+        return buffer;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    /**
+     * Sensor timestamp of the source frame
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * View of the NV21 bytes with its own position; don't write through it
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer view = buffer.duplicate();
+        view.clear();
+        return view;
+    }
+
+    /**
+     * Input for re-running a detector on this frame. ML Kit may read the buffer after
+     * process() returns, so keep a reference until its task completes.
+     */
+    public InputImage toInputImage() {
+        return InputImage.fromByteBuffer(getBuffer(), width, height, rotationDegrees,
+                InputImage.IMAGE_FORMAT_NV21);
+    }
+
+    /**
+     * Writes the frame as a JPEG with its rotation in the EXIF orientation tag. YuvImage needs a
+     * heap array, so this copies the pixels once; it's meant for occasional exports.
+     */
+    public void writeJpeg(File file, int quality) throws IOException {
+        byte[] nv21 = new byte[buffer.capacity()];
+        getBuffer().get(nv21);
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            if (!yuvImage.compressToJpeg(new Rect(0, 0, width, height), quality, out)) {
+                throw new IOException("JPEG compression failed");
+            }
+        }
+
+        ExifInterface exif = new ExifInterface(file.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(exifOrientation(rotationDegrees)));
+        exif.saveAttributes();
+    }
+
+    public void retain() {
+        refCount.incrementAndGet();
+    }
+
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            refCount.set(0);
+            throw new IllegalStateException(TAG + " released more often than retained");
+        }
+    }
+
+    private static int exifOrientation(int rotationDegrees) {
+        switch (rotationDegrees) {
+            case 90:
+                return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180:
+                return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270:
+                return ExifInterface.ORIENTATION_ROTATE_270;
+            default:
+                return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.a22f3272smd_project;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed set of reusable direct buffers that YUV_420_888 frames are copied into as NV21.
+ *
+ * Buffers are allocated on demand up to {@code capacity} and then reused, so copying every
+ * analyzed frame does not allocate. When all of them are held the copy is refused and counted
+ * rather than growing the pool. The Y plane is copied with one bulk put per row (or one for
+ * the whole plane when unpadded). Chroma takes the same route when the device's U and V planes
+ * are views over one interleaved VU buffer, which is the common layout; anything else falls
+ * back to per-pixel copying. {@link #copy} runs on the analysis thread; frames can be
+ * released from any thread.
+ */
+public final class Nv21FramePool {
+
+    private final int capacity;
+    private final ArrayDeque<Nv21Frame> free = new ArrayDeque<>();
+    private final AtomicLong refusedCopies = new AtomicLong();
+    private int allocated;
+    private int frameWidth;
+    private int frameHeight;
+
+    // Chroma layout check, cached per plane geometry (analysis thread only)
+    private int checkedRowStride = -1;
+    private int checkedWidth = -1;
+    private int checkedHeight = -1;
+    private boolean interleavedVu;
+
+    public Nv21FramePool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Copies the frame, or returns null if every buffer is in use. The returned frame holds
+     * one reference owned by the caller.
+     */
+    public Nv21Frame copy(ImageProxy image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Nv21Frame frame = obtain(width, height);
+        if (frame == null) {
+            refusedCopies.incrementAndGet();
+            return null;
+        }
+
+        ByteBuffer out = frame.getWritableBuffer();
+        out.clear();
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        copyLuma(planes[0], width, height, out);
+        copyChroma(planes[1], planes[2], width, height, out);
+        frame.onCopied(image.getImageInfo().getRotationDegrees(), image.getImageInfo().getTimestamp());
+        return frame;
+    }
+
+    /**
+     * Copies refused because every buffer was still held
+     */
+    public long getRefusedCopies() {
+        return refusedCopies.get();
+    }
+
+    private synchronized Nv21Frame obtain(int width, int height) {
+        if (width != frameWidth || height != frameHeight) {
+            // New analysis size: drop idle buffers; held ones are dropped when released
+            allocated -= free.size();
+            free.clear();
+            frameWidth = width;
+            frameHeight = height;
+        }
+        Nv21Frame frame = free.poll();
+        if (frame == null && allocated < capacity) {
+            frame = new Nv21Frame(this, width, height);
+            allocated++;
+        }
+        return frame;
+    }
+
+    synchronized void recycle(Nv21Frame frame) {
+        if (frame.width == frameWidth && frame.height == frameHeight) {
+            free.push(frame);
+        } else {
+            allocated--;
+        }
+    }
+
+    private static void copyLuma(ImageProxy.PlaneProxy plane, int width, int height, ByteBuffer out) {
+        ByteBuffer source = plane.getBuffer().duplicate();
+        int rowStride = plane.getRowStride();
+        if (rowStride == width) {
+            source.position(0);
+            source.limit(width * height);
+            out.put(source);
+            return;
+        }
+        for (int row = 0; row < height; row++) {
+            int start = row * rowStride;
+            source.limit(start + width);
+            source.position(start);
+            out.put(source);
+        }
+    }
+
+    private void copyChroma(ImageProxy.PlaneProxy uPlane, ImageProxy.PlaneProxy vPlane,
+                            int width, int height, ByteBuffer out) {
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        ByteBuffer u = uPlane.getBuffer();
+        ByteBuffer v = vPlane.getBuffer();
+
+        if (isInterleavedVu(uPlane, vPlane, width, height)) {
+            // The V plane already reads V U V U ...; copy each row but its last U, then add it
+            ByteBuffer source = v.duplicate();
+            int rowStride = vPlane.getRowStride();
+            for (int row = 0; row < chromaHeight; row++) {
+                int start = row * rowStride;
+                source.limit(start + width - 1);
+                source.position(start);
+                out.put(source);
+                out.put(u.get(start + width - 2));
+            }
+            return;
+        }
+
+        int uRowStride = uPlane.getRowStride();
+        int vRowStride = vPlane.getRowStride();
+        int uPixelStride = uPlane.getPixelStride();
+        int vPixelStride = vPlane.getPixelStride();
+        for (int row = 0; row < chromaHeight; row++) {
+            for (int column = 0; column < chromaWidth; column++) {
+                out.put(v.get(row * vRowStride + column * vPixelStride));
+                out.put(u.get(row * uRowStride + column * uPixelStride));
+            }
+        }
+    }
+
+    /**
+     * Whether V and U are one VU buffer seen one byte apart: V shifted by one then reads the
+     * same bytes as U. A frame where the first V and U are equal can't tell overlapping
+     * memory from equal content, so it isn't cached.
+     */
+    private boolean isInterleavedVu(ImageProxy.PlaneProxy uPlane, ImageProxy.PlaneProxy vPlane,
+                                    int width, int height) {
+        int rowStride = vPlane.getRowStride();
+        if (uPlane.getPixelStride() != 2 || vPlane.getPixelStride() != 2
+                || uPlane.getRowStride() != rowStride) {
+            return false;
+        }
+        if (rowStride == checkedRowStride && width == checkedWidth && height == checkedHeight) {
+            return interleavedVu;
+        }
+
+        ByteBuffer u = uPlane.getBuffer().duplicate();
+        ByteBuffer v = vPlane.getBuffer().duplicate();
+        if (u.get(0) == v.get(0)) {
+            return false;
+        }
+        v.position(1);
+        u.limit(u.limit() - 1);
+        interleavedVu = v.remaining() == u.remaining() && v.compareTo(u) == 0;
+        checkedRowStride = rowStride;
+        checkedWidth = width;
+        checkedHeight = height;
+        return interleavedVu;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.a22f3272smd_project;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.OptIn;
 import androidx.appcompat.app.AppCompatActivity;
@@ -11,95 +15,184 @@ import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
-import androidx.camera.core.Preview;
 import androidx.camera.core.ExperimentalGetImage;
-import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
-import com.google.common.util.concurrent.ListenableFuture;
+import androidx.core.content.FileProvider;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.objects.DetectedObject;
 import com.google.mlkit.vision.objects.ObjectDetector;
-import com.google.mlkit.vision.objects.defaults.ObjectDetectorOptions;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.File;
+import java.util.List;
 
 public class ObjectDetection extends AppCompatActivity {
 
     private PreviewView previewView;
     private TextView resultText;
+    // Live mode text: the tracked object list, rebuilt on changes, and the latency line below it
+    private String trackedObjectsText = "";
+    private String latencyText = "";
     private Button captureButton;
     private Button switchCameraButton;
     private Button exportButton;
     private ImageCapture imageCapture;
-    private ExecutorService cameraExecutor;
+    private FramePipeline<List<DetectedObject>> framePipeline;
     private ObjectDetector objectDetector;
-    private CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
+    private ObjectDetector streamDetector;
+    private final TrackedObjectCache trackedObjects = new TrackedObjectCache();
+    private ScanHistoryWriter scanHistory;
+    private LabelExporter labelExporter;
+    private volatile boolean liveMode = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_object_detection);
+        scanHistory = ScanHistoryWriter.getInstance(this);
 
         previewView = findViewById(R.id.preview_view);
         resultText = findViewById(R.id.text_output);
         captureButton = findViewById(R.id.capture_button);
         switchCameraButton = findViewById(R.id.switch_camera_button);
         exportButton = findViewById(R.id.export_button);
+        Button liveButton = findViewById(R.id.live_button);
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
+        // Shared, already warmed detectors: single image for captures, stream mode (which
+        // tracks objects across frames) for live mode
+        WarmStartManager.getInstance().acquire();
+        objectDetector = WarmStartManager.getInstance().getObjectDetector(false);
+        streamDetector = WarmStartManager.getInstance().getObjectDetector(true);
 
-        // Configure the object detector
-        ObjectDetectorOptions options = new ObjectDetectorOptions.Builder()
-                .setDetectorMode(ObjectDetectorOptions.SINGLE_IMAGE_MODE)
-                .enableClassification()
-                .enableMultipleObjects()
-                .build();
-        objectDetector = com.google.mlkit.vision.objects.ObjectDetection.getClient(options);
+        labelExporter = newLabelExporter();
 
+        imageCapture = new ImageCapture.Builder().build();
+
+        framePipeline = new FramePipeline<>(this, this, previewView);
+        framePipeline.setMetrics(FrameMetrics.forDetector("object"));
+        framePipeline.addUseCase(imageCapture);
+        framePipeline.setFrameGate(() -> liveMode);
+        framePipeline.setCadenceGovernor(new CadenceGovernor("object", 200, 0, 1000));
+        framePipeline.setStaticSceneFilter(new StaticSceneFilter(8, 2000));
+        framePipeline.setAnalysisResolution(AnalysisResolution.forObjects());
+        framePipeline.setDetector(streamDetector::process,
+                (detectedObjects, image, reused) -> handleLiveResult(detectedObjects, reused));
         startCamera();
 
+        liveButton.setOnClickListener(v -> {
+            liveMode = !liveMode;
+            liveButton.setText(liveMode ? "Stop Live" : "Live");
+            captureButton.setEnabled(!liveMode);
+            trackedObjects.clear();
+            if (liveMode) {
+                trackedObjectsText = "Tracking objects...\n";
+                latencyText = "";
+                resultText.setText("Tracking objects...");
+            }
+        });
+
         switchCameraButton.setOnClickListener(v -> switchCamera());
         exportButton.setOnClickListener(v -> exportLabels());
         captureButton.setOnClickListener(v -> takePhoto());
     }
 
     private void startCamera() {
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
-                ProcessCameraProvider.getInstance(this);
-
-        cameraProviderFuture.addListener(() -> {
-            try {
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
-                Preview preview = new Preview.Builder().build();
-                imageCapture = new ImageCapture.Builder().build();
-
-                preview.setSurfaceProvider(previewView.getSurfaceProvider());
-
-                cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
-
-            } catch (Exception e) {
-                Log.e("ObjectDetection", "Camera initialization failed", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+        framePipeline.start();
     }
 
     private void switchCamera() {
-        cameraSelector = cameraSelector == CameraSelector.DEFAULT_BACK_CAMERA
-                ? CameraSelector.DEFAULT_FRONT_CAMERA
-                : CameraSelector.DEFAULT_BACK_CAMERA;
+        framePipeline.setCameraSelector(
+                framePipeline.getCameraSelector() == CameraSelector.DEFAULT_BACK_CAMERA
+                        ? CameraSelector.DEFAULT_FRONT_CAMERA
+                        : CameraSelector.DEFAULT_BACK_CAMERA);
         startCamera();
     }
 
+    /**
+     * Every detection since the last export is already streamed to disk; this just closes the
+     * file, offers it to a share target and starts a new one
+     */
     private void exportLabels() {
-        String labels = resultText.getText().toString();
-        if (labels.equals("Detected objects will appear here") || labels.isEmpty()) {
+        if (labelExporter.getRecordCount() == 0) {
             Log.d("ObjectDetection", "No labels to export");
+            Toast.makeText(this, "No labels to export", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        LabelExporter finished = labelExporter;
+        labelExporter = newLabelExporter();
+        finished.finish((file, records) -> {
+            if (file == null) {
+                Toast.makeText(this, "Export failed", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            Log.d("ObjectDetection", "Exported " + records + " labels to " + file);
+            shareFile(file, finished.getFormat().mimeType);
+        });
+    }
+
+    private LabelExporter newLabelExporter() {
+        File file = new File(new File(getExternalFilesDir(null), "exports"),
+                "labels_" + System.currentTimeMillis() + "." + LabelExporter.Format.CSV.extension);
+        return new LabelExporter(file, LabelExporter.Format.CSV);
+    }
+
+    private void shareFile(File file, String mimeType) {
+        Uri uri = FileProvider.getUriForFile(this, getPackageName() + ".fileprovider", file);
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType(mimeType);
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(intent, "Share labels"));
+    }
+
+    /**
+     * Merges a STREAM_MODE result into the tracking cache. The object list is only rebuilt
+     * when a tracked object appears, disappears or changes label; the latency line follows
+     * every new result.
+     */
+    private void handleLiveResult(List<DetectedObject> detectedObjects, boolean reused) {
+        if (!liveMode) return;
+
+        // A reused result was already exported when it was new
+        long now = System.currentTimeMillis();
+        for (int i = 0; !reused && i < detectedObjects.size(); i++) {
+            DetectedObject detectedObject = detectedObjects.get(i);
+            Integer trackingId = detectedObject.getTrackingId();
+            for (DetectedObject.Label label : detectedObject.getLabels()) {
+                labelExporter.append(now, trackingId != null ? trackingId : -1,
+                        label.getText(), label.getConfidence(), detectedObject.getBoundingBox());
+            }
+        }
+
+        boolean objectsChanged = trackedObjects.update(detectedObjects, SystemClock.elapsedRealtime());
+        String latency = "Latency: " + framePipeline.getLastLatencyMillis() + " ms, analyzing every "
+                + framePipeline.getCadenceGovernor().getIntervalMillis() + " ms";
+        if (!objectsChanged && latency.equals(latencyText)) {
             return;
         }
-        Log.d("ObjectDetection", "Exporting labels: " + labels);
-        // Implement actual export logic here (e.g., save to file or share)
+        latencyText = latency;
+        if (objectsChanged) {
+            trackedObjectsText = describeTrackedObjects();
+        }
+        resultText.setText(trackedObjectsText + latency);
+    }
+
+    private String describeTrackedObjects() {
+        StringBuilder result = new StringBuilder();
+        List<TrackedObjectCache.TrackedObject> objects = trackedObjects.getObjects();
+        if (objects.isEmpty()) {
+            result.append("No objects detected.\n");
+        }
+        for (TrackedObjectCache.TrackedObject object : objects) {
+            result.append("#")
+                    .append(object.trackingId)
+                    .append(" Label: ")
+                    .append(object.label)
+                    .append(", Confidence: ")
+                    .append(String.format("%.2f", object.confidence))
+                    .append("\n");
+        }
+        return result.toString();
     }
 
     private void takePhoto() {
@@ -133,14 +226,21 @@ public class ObjectDetection extends AppCompatActivity {
                 imageProxy.getImageInfo().getRotationDegrees()
         );
 
+        long start = SystemClock.elapsedRealtime();
         objectDetector.process(image)
                 .addOnSuccessListener(detectedObjects -> {
+                    long latency = SystemClock.elapsedRealtime() - start;
                     StringBuilder result = new StringBuilder();
+                    long now = System.currentTimeMillis();
                     if (detectedObjects.isEmpty()) {
                         result.append("No objects detected.");
                     } else {
                         for (DetectedObject detectedObject : detectedObjects) {
                             for (DetectedObject.Label label : detectedObject.getLabels()) {
+                                labelExporter.append(now, -1, label.getText(), label.getConfidence(),
+                                        detectedObject.getBoundingBox());
+                                scanHistory.record(ScanRecord.TYPE_OBJECT, label.getText(),
+                                        String.format("Confidence: %.2f", label.getConfidence()));
                                 result.append("Label: ")
                                         .append(label.getText())
                                         .append(", Confidence: ")
@@ -149,6 +249,7 @@ public class ObjectDetection extends AppCompatActivity {
                             }
                         }
                     }
+                    result.append("Latency: ").append(latency).append(" ms");
                     resultText.setText(result.toString());
                     imageProxy.close();
                 })
@@ -162,10 +263,13 @@ public class ObjectDetection extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        cameraExecutor.shutdown();
-        if (objectDetector != null) {
-            objectDetector.close();
-        }
+        // Detections already running in ML Kit still call back; they must not export anything
+        liveMode = false;
+        framePipeline.shutdown();
+        scanHistory.flush();
+        // Keeps what was streamed so far on disk even if it was never shared
+        labelExporter.finish((file, records) -> Log.d("ObjectDetection", "Closed export with " + records + " labels"));
+        WarmStartManager.getInstance().release();
     }
 }
 
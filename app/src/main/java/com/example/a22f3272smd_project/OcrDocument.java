@@ -0,0 +1,120 @@
+package com.example.a22f3272smd_project;
+
+import com.google.mlkit.vision.text.Text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An OCR result with its block / line / element structure kept, in ML Kit's reading order.
+ *
+ * Elements are stored flat, so an element index is also its reading-order position, and each
+ * element knows its line and each line its block. That is enough to turn any set of selected
+ * elements back into text with the original line breaks. Immutable once built.
+ */
+public final class OcrDocument {
+
+    private static final OcrDocument EMPTY =
+            new OcrDocument(Collections.emptyList(), new int[0], new int[0]);
+
+    private final List<Text.Element> elements;
+    private final int[] elementLine;
+    private final int[] lineBlock;
+
+    private OcrDocument(List<Text.Element> elements, int[] elementLine, int[] lineBlock) {
+        this.elements = elements;
+        this.elementLine = elementLine;
+        this.lineBlock = lineBlock;
+    }
+
+    public static OcrDocument empty() {
+        return EMPTY;
+    }
+
+    public static OcrDocument from(Text text) {
+        List<Text.Element> elements = new ArrayList<>();
+        List<Text.TextBlock> blocks = text.getTextBlocks();
+        int lineCount = 0;
+        for (Text.TextBlock block : blocks) {
+            lineCount += block.getLines().size();
+        }
+
+        int[] lineBlock = new int[lineCount];
+        int[] elementLine = new int[16];
+        int line = 0;
+        for (int b = 0; b < blocks.size(); b++) {
+            for (Text.Line textLine : blocks.get(b).getLines()) {
+                lineBlock[line] = b;
+                for (Text.Element element : textLine.getElements()) {
+                    if (elements.size() == elementLine.length) {
+                        int[] grown = new int[elementLine.length * 2];
+                        System.arraycopy(elementLine, 0, grown, 0, elementLine.length);
+                        elementLine = grown;
+                    }
+                    elementLine[elements.size()] = line;
+                    elements.add(element);
+                }
+                line++;
+            }
+        }
+        return new OcrDocument(Collections.unmodifiableList(elements), elementLine, lineBlock);
+    }
+
+    /**
+     * Wraps a flat element list, e.g. from an older caller, as a single line
+     */
+    public static OcrDocument fromElements(List<Text.Element> elements) {
+        if (elements.isEmpty()) return EMPTY;
+        return new OcrDocument(Collections.unmodifiableList(new ArrayList<>(elements)),
+                new int[elements.size()], new int[1]);
+    }
+
+    /**
+     * All elements in reading order
+     */
+    public List<Text.Element> getElements() {
+        return elements;
+    }
+
+    public int getElementCount() {
+        return elements.size();
+    }
+
+    public int getLineCount() {
+        return lineBlock.length;
+    }
+
+    public int getLineOf(int element) {
+        return elementLine[element];
+    }
+
+    public int getBlockOf(int element) {
+        return lineBlock[elementLine[element]];
+    }
+
+    /**
+     * Text of the given elements, which must be in ascending (reading) order. Elements on the
+     * same line are joined with a space, a new line starts a new line and a new block leaves
+     * a blank line.
+     */
+    public String getText(int[] elementIndices, int count) {
+        StringBuilder out = new StringBuilder();
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int element = elementIndices[i];
+            if (previous >= 0) {
+                if (getBlockOf(element) != getBlockOf(previous)) {
+                    out.append("\n\n");
+                } else if (elementLine[element] != elementLine[previous]) {
+                    out.append('\n');
+                } else {
+                    out.append(' ');
+                }
+            }
+            out.append(elements.get(element).getText());
+            previous = element;
+        }
+        return out.toString();
+    }
+}
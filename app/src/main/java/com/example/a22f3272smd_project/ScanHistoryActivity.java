@@ -0,0 +1,132 @@
+package com.example.a22f3272smd_project;
+
+import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.widget.AbsListView;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scan history, newest first. Rows are loaded a page at a time as the list scrolls.
+ */
+public class ScanHistoryActivity extends AppCompatActivity {
+
+    private static final int PAGE_SIZE = 50;
+    // Start loading the next page when this many rows are left below the visible ones
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<String> rows = new ArrayList<>();
+    private ArrayAdapter<String> adapter;
+    private TextView emptyText;
+
+    private long lastLoadedId = Long.MAX_VALUE;
+    private boolean loading = false;
+    private boolean endReached = false;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_scan_history);
+
+        ListView historyList = findViewById(R.id.history_list);
+        emptyText = findViewById(R.id.empty_text);
+        Button clearButton = findViewById(R.id.clear_button);
+
+        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, rows);
+        historyList.setAdapter(adapter);
+        historyList.setEmptyView(emptyText);
+
+        historyList.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        clearButton.setOnClickListener(v -> executor.execute(() -> {
+            ScanHistoryDatabase.getInstance(this).scanRecordDao().deleteAll();
+            runOnUiThread(this::reload);
+        }));
+
+        // Anything still waiting in the write-behind queue should show up too
+        ScanHistoryWriter.getInstance(this).flush();
+        reload();
+    }
+
+    private void reload() {
+        rows.clear();
+        adapter.notifyDataSetChanged();
+        lastLoadedId = Long.MAX_VALUE;
+        endReached = false;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached) return;
+        loading = true;
+        emptyText.setText("Loading...");
+
+        long beforeId = lastLoadedId;
+        executor.execute(() -> {
+            List<ScanRecord> page = ScanHistoryDatabase.getInstance(this)
+                    .scanRecordDao().loadPage(beforeId, PAGE_SIZE);
+
+            List<String> pageRows = new ArrayList<>(page.size());
+            for (ScanRecord record : page) {
+                pageRows.add(format(record));
+            }
+
+            runOnUiThread(() -> {
+                loading = false;
+                // A reload while this page was loading makes it stale, start over
+                if (beforeId != lastLoadedId) {
+                    loadNextPage();
+                    return;
+                }
+
+                if (page.size() < PAGE_SIZE) {
+                    endReached = true;
+                }
+                if (!page.isEmpty()) {
+                    lastLoadedId = page.get(page.size() - 1).id;
+                    rows.addAll(pageRows);
+                    adapter.notifyDataSetChanged();
+                }
+                emptyText.setText("No scans yet.");
+            });
+        });
+    }
+
+    private static String format(ScanRecord record) {
+        StringBuilder row = new StringBuilder();
+        row.append(DateFormat.format("yyyy-MM-dd HH:mm:ss", record.scannedAt))
+                .append("  [").append(record.type).append("]\n")
+                .append(record.value);
+        if (record.detail != null) {
+            row.append("\n").append(record.detail);
+        }
+        return row.toString();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+    }
+}
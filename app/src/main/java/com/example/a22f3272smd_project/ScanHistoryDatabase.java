@@ -0,0 +1,28 @@
+package com.example.a22f3272smd_project;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+@Database(entities = {ScanRecord.class}, version = 1, exportSchema = false)
+public abstract class ScanHistoryDatabase extends RoomDatabase {
+
+    private static volatile ScanHistoryDatabase instance;
+
+    public abstract ScanRecordDao scanRecordDao();
+
+    public static ScanHistoryDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ScanHistoryDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    ScanHistoryDatabase.class, "scan_history.db")
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.a22f3272smd_project;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue in front of the scan history table.
+ *
+ * {@link #record} only appends to a lock-free queue, so it is safe to call from the analyzer
+ * thread or an ML Kit callback. A single background thread drains the queue into one insert
+ * transaction, either after FLUSH_DELAY_MS or as soon as BATCH_SIZE records are waiting.
+ */
+public final class ScanHistoryWriter {
+
+    private static final String TAG = "ScanHistoryWriter";
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_DELAY_MS = 1000;
+    // Beyond this the disk can't keep up; new records are dropped rather than growing the heap
+    private static final int MAX_PENDING = 5000;
+
+    private static volatile ScanHistoryWriter instance;
+
+    private final ScanRecordDao dao;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final ConcurrentLinkedQueue<ScanRecord> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    private ScanHistoryWriter(Context context) {
+        dao = ScanHistoryDatabase.getInstance(context).scanRecordDao();
+    }
+
+    public static ScanHistoryWriter getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ScanHistoryWriter.class) {
+                if (instance == null) {
+                    instance = new ScanHistoryWriter(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void record(String type, String value, String detail) {
+        if (pendingCount.incrementAndGet() > MAX_PENDING) {
+            pendingCount.decrementAndGet();
+            droppedRecords.incrementAndGet();
+            return;
+        }
+        pending.offer(new ScanRecord(type, value, detail, System.currentTimeMillis()));
+
+        if (pendingCount.get() >= BATCH_SIZE) {
+            executor.execute(this::drain);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::drain, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes whatever is queued without waiting for the batch timer (e.g. when a screen closes)
+     */
+    public void flush() {
+        executor.execute(this::drain);
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Runs on the writer thread. Records queued while a batch is being written are picked up
+     * by the next loop iteration, so a burst becomes a few large transactions.
+     */
+    private void drain() {
+        flushScheduled.set(false);
+
+        List<ScanRecord> batch = new ArrayList<>(BATCH_SIZE);
+        ScanRecord record;
+        while (true) {
+            while (batch.size() < BATCH_SIZE * 4 && (record = pending.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) return;
+
+            pendingCount.addAndGet(-batch.size());
+            try {
+                dao.insertAll(batch);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to write " + batch.size() + " records", e);
+            }
+            batch.clear();
+        }
+    }
+}
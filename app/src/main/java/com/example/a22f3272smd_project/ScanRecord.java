@@ -0,0 +1,40 @@
+package com.example.a22f3272smd_project;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One persisted detection result (a barcode, a block of recognized text or an object label)
+ */
+@Entity(tableName = "scan_history", indices = {@Index("type")})
+public class ScanRecord {
+
+    public static final String TYPE_BARCODE = "barcode";
+    public static final String TYPE_TEXT = "text";
+    public static final String TYPE_OBJECT = "object";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @NonNull
+    public String type;
+
+    @NonNull
+    public String value;
+
+    /** Optional extra info, e.g. the classified barcode type or a confidence */
+    public String detail;
+
+    @ColumnInfo(name = "scanned_at")
+    public long scannedAt;
+
+    public ScanRecord(@NonNull String type, @NonNull String value, String detail, long scannedAt) {
+        this.type = type;
+        this.value = value;
+        this.detail = detail;
+        this.scannedAt = scannedAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.a22f3272smd_project;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface ScanRecordDao {
+
+    /** Room runs a list insert in a single transaction */
+    @Insert
+    void insertAll(List<ScanRecord> records);
+
+    /**
+     * Keyset paging, newest first: pass Long.MAX_VALUE for the first page, then the id of the
+     * last row received. Unlike OFFSET this stays cheap however deep the user scrolls.
+     */
+    @Query("SELECT * FROM scan_history WHERE id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<ScanRecord> loadPage(long beforeId, int limit);
+
+    @Query("SELECT COUNT(*) FROM scan_history")
+    int count();
+
+    @Query("DELETE FROM scan_history")
+    void deleteAll();
+}
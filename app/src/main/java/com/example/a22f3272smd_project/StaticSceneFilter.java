@@ -0,0 +1,102 @@
+package com.example.a22f3272smd_project;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cheap pre-filter that spots frames showing the same scene as the last inferred one.
+ *
+ * The Y plane is reduced to a 16x12 grid of cell averages, 16 sampled pixels per cell, which
+ * is a few thousand byte reads per frame. A frame is static when no cell moved by more than
+ * {@code cellThreshold} luma levels from the thumbnail of the last frame sent to the detector.
+ * Averaging over a cell hides sensor noise, while a single cell changing catches a small
+ * object entering. Comparing with the last inferred frame (not the previous one) means slow
+ * drift still adds up, and {@code maxReuseMillis} forces a fresh inference now and then
+ * regardless. Analysis thread only, apart from the counter.
+ */
+public final class StaticSceneFilter {
+
+    private static final int GRID_COLUMNS = 16;
+    private static final int GRID_ROWS = 12;
+    private static final int SAMPLES_PER_SIDE = 4;
+    private static final int CELLS = GRID_COLUMNS * GRID_ROWS;
+
+    private final int cellThreshold;
+    private final long maxReuseNanos;
+    private int[] reference = new int[CELLS];
+    private int[] candidate = new int[CELLS];
+    private boolean hasReference = false;
+    private long referenceAtNanos;
+
+    /**
+     * @param cellThreshold  largest per-cell luma change (0-255) still treated as the same scene
+     * @param maxReuseMillis longest a result is reused before a frame is inferred anyway
+     */
+    public StaticSceneFilter(int cellThreshold, long maxReuseMillis) {
+        this.cellThreshold = cellThreshold;
+        this.maxReuseNanos = maxReuseMillis * 1_000_000L;
+    }
+
+    /**
+     * Whether the frame can reuse the last result. Its thumbnail is kept as the candidate
+     * reference either way; call {@link #onFrameInferred} if it then goes to the detector.
+     */
+    boolean isStatic(ImageProxy image, long nowNanos) {
+        sampleLuma(image, candidate);
+        if (!hasReference || nowNanos - referenceAtNanos >= maxReuseNanos) {
+            return false;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            if (Math.abs(candidate[i] - reference[i]) > cellThreshold) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The last checked frame went to the detector; later frames are compared with it
+     */
+    void onFrameInferred(long nowNanos) {
+        int[] swap = reference;
+        reference = candidate;
+        candidate = swap;
+        hasReference = true;
+        referenceAtNanos = nowNanos;
+    }
+
+    /**
+     * Forgets the reference, e.g. after switching cameras
+     */
+    void reset() {
+        hasReference = false;
+    }
+
+    private static void sampleLuma(ImageProxy image, int[] out) {
+        ImageProxy.PlaneProxy plane = image.getPlanes()[0];
+        ByteBuffer buffer = plane.getBuffer();
+        int rowStride = plane.getRowStride();
+        int pixelStride = plane.getPixelStride();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int columnSteps = GRID_COLUMNS * SAMPLES_PER_SIDE * 2;
+        int rowSteps = GRID_ROWS * SAMPLES_PER_SIDE * 2;
+
+        for (int row = 0; row < GRID_ROWS; row++) {
+            for (int column = 0; column < GRID_COLUMNS; column++) {
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES_PER_SIDE; sy++) {
+                    // Centre of each sub-cell, so samples never touch the frame edge
+                    int y = ((row * SAMPLES_PER_SIDE + sy) * 2 + 1) * height / rowSteps;
+                    int rowOffset = y * rowStride;
+                    for (int sx = 0; sx < SAMPLES_PER_SIDE; sx++) {
+                        int x = ((column * SAMPLES_PER_SIDE + sx) * 2 + 1) * width / columnSteps;
+                        sum += buffer.get(rowOffset + x * pixelStride) & 0xFF;
+                    }
+                }
+                out[row * GRID_COLUMNS + column] = sum / (SAMPLES_PER_SIDE * SAMPLES_PER_SIDE);
+            }
+        }
+    }
+}
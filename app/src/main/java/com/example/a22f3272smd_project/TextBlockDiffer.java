@@ -0,0 +1,131 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.text.Text;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares consecutive live OCR results block by block.
+ *
+ * Each block is reduced to a 64-bit signature of its text and its box snapped to a coarse
+ * grid, so small jitter between frames does not count as a change. After an update
+ * {@link #getPreviousIndex(int)} maps each block of the new result to its index in the
+ * previous one, or -1 if it is new or moved, so callers can carry over per-block work.
+ * Live results hold tens of blocks, so matching is a plain scan.
+ */
+public class TextBlockDiffer {
+
+    private static final int GRID_SIZE = 16;
+
+    private long[] previousSignatures = new long[0];
+    private long[] currentSignatures = new long[0];
+    private int previousCount;
+    private String previousText = "";
+
+    // For each block of the last result, its index in the result before, or -1
+    private int[] previousIndex = new int[0];
+    private boolean[] matched = new boolean[0];
+    private int changedCount;
+    private int removedCount;
+    private boolean textChanged;
+
+    /**
+     * Diffs a new result against the previous one and remembers it for the next call
+     */
+    public void update(Text text) {
+        List<Text.TextBlock> blocks = text.getTextBlocks();
+        int count = blocks.size();
+        if (currentSignatures.length < count) {
+            currentSignatures = new long[count];
+            previousIndex = new int[count];
+        }
+        if (matched.length < previousCount) {
+            matched = new boolean[previousCount];
+        }
+        Arrays.fill(matched, 0, previousCount, false);
+
+        changedCount = 0;
+        for (int i = 0; i < count; i++) {
+            long signature = signature(blocks.get(i));
+            currentSignatures[i] = signature;
+            previousIndex[i] = match(signature, i);
+            if (previousIndex[i] < 0) {
+                changedCount++;
+            }
+        }
+        removedCount = 0;
+        for (int i = 0; i < previousCount; i++) {
+            if (!matched[i]) {
+                removedCount++;
+            }
+        }
+
+        String fullText = text.getText();
+        textChanged = !fullText.equals(previousText);
+        previousText = fullText;
+
+        long[] swap = previousSignatures;
+        previousSignatures = currentSignatures;
+        currentSignatures = swap;
+        previousCount = count;
+    }
+
+    public boolean hasLayoutChanged() {
+        return changedCount > 0 || removedCount > 0;
+    }
+
+    public boolean hasTextChanged() {
+        return textChanged;
+    }
+
+    /**
+     * Number of blocks that appeared, disappeared or moved in the last update
+     */
+    public int getChangedBlocks() {
+        return changedCount + removedCount;
+    }
+
+    /**
+     * Index the given block of the last result had in the result before, or -1 if it changed
+     */
+    public int getPreviousIndex(int block) {
+        return previousIndex[block];
+    }
+
+    public void reset() {
+        previousCount = 0;
+        previousText = "";
+    }
+
+    /**
+     * First unmatched previous block with this signature, preferring the same position
+     */
+    private int match(long signature, int position) {
+        if (position < previousCount && !matched[position] && previousSignatures[position] == signature) {
+            matched[position] = true;
+            return position;
+        }
+        for (int j = 0; j < previousCount; j++) {
+            if (!matched[j] && previousSignatures[j] == signature) {
+                matched[j] = true;
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    private static long signature(Text.TextBlock block) {
+        long hash = block.getText().hashCode();
+        Rect box = block.getBoundingBox();
+        if (box != null) {
+            hash = hash * 31 + box.left / GRID_SIZE;
+            hash = hash * 31 + box.top / GRID_SIZE;
+            hash = hash * 31 + box.right / GRID_SIZE;
+            hash = hash * 31 + box.bottom / GRID_SIZE;
+        }
+        return hash;
+    }
+}
@@ -1,46 +1,64 @@
 package com.example.a22f3272smd_project;
 
 import android.Manifest;
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextUtils;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
-import androidx.camera.core.Preview;
-import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.mlkit.nl.translate.TranslateLanguage;
 import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.text.TextRecognition;
-import com.google.mlkit.vision.text.TextRecognizer;
 import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 import com.google.mlkit.vision.text.Text;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Locale;
+import java.util.Map;
 
 public class TextDetection extends AppCompatActivity {
 
     private static final String TAG = "TextDetection";
+    private static final long LIVE_OCR_INTERVAL_MS = 300; // Throttled cadence for live OCR
+    private static final int TRANSLATION_MEMORY_ENTRIES = 512;
     private PreviewView previewView;
     private TextView resultText;
     private Button captureButton;
     private TextOverlay textOverlay;
     private ImageCapture imageCapture;
-    private ExecutorService cameraExecutor;
+    private FramePipeline<Text> framePipeline;
+    private TextRecognizerPool.PooledRecognizer textRecognizer;
+    private final TextBlockDiffer textBlockDiffer = new TextBlockDiffer();
+    private volatile boolean liveMode = false;
+    private TranslationStage translationStage; // Created the first time translation is turned on
+    private boolean translateEnabled = false;
+    private long lastLiveFrameAt; // Only touched on the analysis thread
+
+    // Blocks of the last live result and the text to show for each (translated when
+    // translation is on); a block is done once that text is final
+    private List<Text.TextBlock> liveBlocks = new ArrayList<>();
+    private String[] liveBlockTexts = new String[0];
+    private boolean[] liveBlockDone = new boolean[0];
+    // What resultText holds, block by block, while it shows a live result
+    private String[] shownBlocks = new String[0];
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,12 +68,91 @@ public class TextDetection extends AppCompatActivity {
         previewView = findViewById(R.id.camera_preview);
         resultText = findViewById(R.id.text_output);
         captureButton = findViewById(R.id.capture_button);
+        Button liveButton = findViewById(R.id.live_button);
+        Button translateButton = findViewById(R.id.translate_button);
         textOverlay = findViewById(R.id.overlay);
+        // Tap a word or drag over a region to copy it
+        textOverlay.setOnSelectionListener(this::copyToClipboard);
+
+        // Like the other detector screens, keeps warm clients from being closed while open
+        WarmStartManager.getInstance().acquire();
+        // Shared, pre-warmed recognizer instead of a new client per capture
+        textRecognizer = TextRecognizerPool.getInstance().acquire(TextRecognizerOptions.DEFAULT_OPTIONS);
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
+        imageCapture = new ImageCapture.Builder()
+                .setCaptureMode(ImageCapture.CAPTURE_MODE_MAXIMIZE_QUALITY)
+                .build();
+
+        framePipeline = new FramePipeline<>(this, this, previewView);
+        framePipeline.setMetrics(FrameMetrics.forDetector("text"));
+        // Live OCR reads text down to 2.5% of the frame height; captures keep full resolution
+        framePipeline.setAnalysisResolution(AnalysisResolution.forText(0.025f));
+        textOverlay.setFrameMetrics(framePipeline.getMetrics());
+        framePipeline.addUseCase(imageCapture);
+        // Live OCR runs on the analysis stream, gated to LIVE_OCR_INTERVAL_MS while enabled
+        framePipeline.setFrameGate(this::shouldProcessLiveFrame);
+        // A page held still is read once; the differ then sees the same result
+        framePipeline.setStaticSceneFilter(new StaticSceneFilter(8, 2000));
+        framePipeline.setDetector(textRecognizer::process, this::handleLiveResult);
         checkCameraPermission();
 
         captureButton.setOnClickListener(v -> takePhoto());
+        liveButton.setOnClickListener(v -> {
+            liveMode = !liveMode;
+            liveButton.setText(liveMode ? "Stop Live" : "Live OCR");
+            captureButton.setEnabled(!liveMode);
+            textBlockDiffer.reset();
+            if (liveMode) {
+                resultText.setText("Point the camera at some text...");
+                textOverlay.setElements(new ArrayList<>()); // Clear previous boxes
+            }
+        });
+        translateButton.setOnClickListener(v -> {
+            translateEnabled = !translateEnabled;
+            translateButton.setText(translateEnabled ? "Original" : "Translate");
+            if (translateEnabled && translationStage == null) {
+                translationStage = createTranslationStage();
+            }
+            textBlockDiffer.reset(); // Re-show the next live result in the new language
+        });
+    }
+
+    /**
+     * Latin OCR output into the device language (Spanish on English devices), cached in
+     * memory and in translation_cache.db
+     */
+    private TranslationStage createTranslationStage() {
+        String target = TranslateLanguage.fromLanguageTag(Locale.getDefault().getLanguage());
+        if (target == null || TranslateLanguage.ENGLISH.equals(target)) {
+            target = TranslateLanguage.SPANISH;
+        }
+        TranslationCache cache = new TranslationCache(TRANSLATION_MEMORY_ENTRIES,
+                TranslationCacheDatabase.store(this));
+        return new TranslationStage(new MlKitTranslationBackend(TranslateLanguage.ENGLISH, target),
+                cache, TranslateLanguage.ENGLISH + ">" + target, ContextCompat.getMainExecutor(this));
+    }
+
+    /**
+     * Shows recognized text, translated line by line when translation is on
+     */
+    private void showText(Text visionText) {
+        if (!translateEnabled) {
+            resultText.setText(visionText.getText());
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            for (Text.Line line : block.getLines()) {
+                lines.add(line.getText());
+            }
+        }
+        translationStage.translate(lines, (sourceLines, translations) -> {
+            if (!translateEnabled) return;
+            resultText.setText(TextUtils.join("\n", translations));
+            Log.d(TAG, "Translation cache: " + translationStage.getCache()
+                    + ", translator " + translationStage.getMeanBackendMillis() + " ms per line");
+        });
     }
 
     private void checkCameraPermission() {
@@ -79,28 +176,172 @@ public class TextDetection extends AppCompatActivity {
     }
 
     private void startCamera() {
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
-                ProcessCameraProvider.getInstance(this);
+        framePipeline.start();
+    }
 
-        cameraProviderFuture.addListener(() -> {
-            try {
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
-                CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
+    private boolean shouldProcessLiveFrame() {
+        if (!liveMode) return false;
+
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastLiveFrameAt < LIVE_OCR_INTERVAL_MS) return false;
+        lastLiveFrameAt = now;
+        return true;
+    }
 
-                Preview preview = new Preview.Builder().build();
-                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+    /**
+     * Applies a live OCR result, touching the views only for the parts that changed
+     */
+    private void handleLiveResult(Text visionText, InputImage image, boolean reused) {
+        // A reused result can't change anything on screen
+        if (!liveMode || reused) return;
 
-                imageCapture = new ImageCapture.Builder()
-                        .setCaptureMode(ImageCapture.CAPTURE_MODE_MAXIMIZE_QUALITY)
-                        .build();
+        textBlockDiffer.update(visionText);
+        remapLiveBlocks(visionText);
+
+        if (textBlockDiffer.hasTextChanged()) {
+            if (visionText.getText().isEmpty()) {
+                resultText.setText("No text detected.");
+            } else {
+                showLiveText();
+            }
+        }
 
-                cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
+        if (textBlockDiffer.hasLayoutChanged()) {
+            Log.d(TAG, "Live OCR: " + textBlockDiffer.getChangedBlocks() + " blocks changed");
+            textOverlay.setDocument(
+                    OcrDocument.from(visionText),
+                    image.getWidth(),
+                    image.getHeight(),
+                    image.getRotationDegrees()
+            );
+        }
+    }
 
-            } catch (ExecutionException | InterruptedException e) {
-                Log.e(TAG, "Camera initialization failed", e);
+    /**
+     * Carries the text of unchanged blocks over from the previous result, so only new or
+     * moved blocks are translated again
+     */
+    private void remapLiveBlocks(Text visionText) {
+        List<Text.TextBlock> blocks = visionText.getTextBlocks();
+        String[] texts = new String[blocks.size()];
+        boolean[] done = new boolean[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            int previous = textBlockDiffer.getPreviousIndex(i);
+            if (previous >= 0 && previous < liveBlockTexts.length) {
+                texts[i] = liveBlockTexts[previous];
+                done[i] = liveBlockDone[previous];
+            } else {
+                texts[i] = blocks.get(i).getText();
+                done[i] = !translateEnabled;
             }
-        }, ContextCompat.getMainExecutor(this));
+        }
+        liveBlocks = blocks;
+        liveBlockTexts = texts;
+        liveBlockDone = done;
+    }
+
+    /**
+     * Shows the live blocks, first translating the lines of blocks that aren't done yet
+     */
+    private void showLiveText() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < liveBlocks.size(); i++) {
+            if (liveBlockDone[i]) continue;
+            for (Text.Line line : liveBlocks.get(i).getLines()) {
+                lines.add(line.getText());
+            }
+        }
+        if (lines.isEmpty()) {
+            showLiveBlocks(liveBlockTexts);
+            return;
+        }
+
+        translationStage.translate(lines, (sourceLines, translations) -> {
+            if (!translateEnabled || !liveMode) return;
+            Map<String, String> translated = new HashMap<>();
+            for (int i = 0; i < sourceLines.size(); i++) {
+                translated.put(sourceLines.get(i), translations.get(i));
+            }
+            // Blocks from a newer result may still be missing; their own request shows them
+            boolean complete = true;
+            for (int i = 0; i < liveBlocks.size(); i++) {
+                if (!liveBlockDone[i]) {
+                    complete &= translateBlock(i, translated);
+                }
+            }
+            if (complete) {
+                showLiveBlocks(liveBlockTexts);
+            }
+            Log.d(TAG, "Translation cache: " + translationStage.getCache()
+                    + ", translator " + translationStage.getMeanBackendMillis() + " ms per line");
+        });
+    }
+
+    private boolean translateBlock(int block, Map<String, String> translated) {
+        List<Text.Line> lines = liveBlocks.get(block).getLines();
+        String[] out = new String[lines.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = translated.get(lines.get(i).getText());
+            if (out[i] == null) return false;
+        }
+        liveBlockTexts[block] = TextUtils.join("\n", out);
+        liveBlockDone[block] = true;
+        return true;
+    }
+
+    /**
+     * Puts the blocks into resultText, rewriting only the span between the blocks that are
+     * unchanged at the start and at the end; anything else in resultText is replaced whole
+     */
+    private void showLiveBlocks(String[] blocks) {
+        CharSequence current = resultText.getText();
+        String[] shown = shownBlocks;
+        if (blocks.length == 0 || shown.length == 0 || !(current instanceof Editable)
+                || !TextUtils.join("\n", shown).contentEquals(current)) {
+            resultText.setText(TextUtils.join("\n", blocks), TextView.BufferType.EDITABLE);
+            shownBlocks = blocks.clone();
+            return;
+        }
+
+        int common = Math.min(shown.length, blocks.length);
+        int prefix = 0;
+        while (prefix < common && shown[prefix].equals(blocks[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix
+                && shown[shown.length - 1 - suffix].equals(blocks[blocks.length - 1 - suffix])) {
+            suffix++;
+        }
+        if (prefix == shown.length && prefix == blocks.length) return;
+
+        // Offsets as if every block ended with '\n'; only the last one doesn't
+        int start = 0;
+        for (int i = 0; i < prefix; i++) {
+            start += shown[i].length() + 1;
+        }
+        int end = current.length() + 1;
+        for (int i = 0; i < suffix; i++) {
+            end -= shown[shown.length - 1 - i].length() + 1;
+        }
+        StringBuilder middle = new StringBuilder();
+        for (int i = prefix; i < blocks.length - suffix; i++) {
+            middle.append(blocks[i]).append('\n');
+        }
+        if (suffix == 0) {
+            end--;
+            if (middle.length() == 0) {
+                start--; // Blocks removed from the end take the '\n' before them along
+            } else {
+                middle.setLength(middle.length() - 1);
+                if (start > end) {
+                    start = end; // Appended after the last block
+                    middle.insert(0, '\n');
+                }
+            }
+        }
+        ((Editable) current).replace(start, end, middle);
+        shownBlocks = blocks.clone();
     }
 
     private void takePhoto() {
@@ -142,30 +383,28 @@ public class TextDetection extends AppCompatActivity {
             Log.d(TAG, "Processing image: " + image.getWidth() + "x" + image.getHeight() +
                     ", rotation: " + imageProxy.getImageInfo().getRotationDegrees());
 
-            TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
-
-            recognizer.process(image)
+            textRecognizer.process(image)
                     .addOnSuccessListener(visionText -> {
                         if (visionText.getText().isEmpty()) {
                             resultText.setText("No text detected in image.");
                         } else {
-                            resultText.setText(visionText.getText());
+                            showText(visionText);
                             Log.d(TAG, "Detected text: " + visionText.getText());
+                            ScanHistoryWriter.getInstance(this)
+                                    .record(ScanRecord.TYPE_TEXT, visionText.getText(), null);
                         }
 
-                        // Collect all elements for drawing bounding boxes
-                        List<Text.Element> allElements = new ArrayList<>();
-                        for (Text.TextBlock block : visionText.getTextBlocks()) {
-                            for (Text.Line line : block.getLines()) {
-                                allElements.addAll(line.getElements());
-                            }
-                        }
+                        // Keep blocks, lines and elements for drawing and selection
+                        OcrDocument document = OcrDocument.from(visionText);
 
-                        Log.d(TAG, "Found " + allElements.size() + " text elements");
+                        Log.d(TAG, "Found " + document.getElementCount() + " text elements in "
+                                + document.getLineCount() + " lines");
+                        Log.d(TAG, "Recognizer latency: first " + textRecognizer.getFirstInferenceMillis()
+                                + " ms, steady state " + textRecognizer.getSteadyStateMillis() + " ms");
 
                         // Pass image dimensions and rotation for proper coordinate mapping
-                        textOverlay.setElements(
-                                allElements,
+                        textOverlay.setDocument(
+                                document,
                                 image.getWidth(),
                                 image.getHeight(),
                                 image.getRotationDegrees()
@@ -186,9 +425,20 @@ public class TextDetection extends AppCompatActivity {
         }
     }
 
+    private void copyToClipboard(String selectedText) {
+        ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+        clipboard.setPrimaryClip(ClipData.newPlainText("Recognized text", selectedText));
+        Toast.makeText(this, "Copied: " + selectedText, Toast.LENGTH_SHORT).show();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        cameraExecutor.shutdown();
+        framePipeline.shutdown();
+        TextRecognizerPool.getInstance().release(textRecognizer);
+        if (translationStage != null) {
+            translationStage.close();
+        }
+        WarmStartManager.getInstance().release();
     }
 }
\ No newline at end of file
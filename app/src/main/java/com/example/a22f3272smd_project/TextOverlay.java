@@ -5,18 +5,36 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 
 import com.google.mlkit.vision.text.Text;
 
 import java.util.List;
 
+/**
+ * Text element overlay. Results may be published from any thread with setDocument(); they
+ * are applied on the main thread at the next vsync, so the fields below are main-thread only.
+ *
+ * With a selection listener set, tapping a word selects it and dragging selects every word
+ * inside the dragged rectangle; both resolve through a spatial index over the mapped boxes.
+ */
 public class TextOverlay extends View {
 
     private static final String TAG = "TextOverlay";
 
+    /**
+     * Receives the selected text, in reading order, when a tap or drag ends
+     */
+    public interface OnSelectionListener {
+        void onSelectionChanged(String selectedText);
+    }
+
+    private OcrDocument document = OcrDocument.empty();
     private List<Text.Element> elements;
     private final Paint boxPaint;
     private final Paint textPaint;
@@ -32,6 +50,51 @@ public class TextOverlay extends View {
     private float translationX;
     private float translationY;
 
+    // Rotation folded into "offset + sign * coordinate", resolved once per transform change
+    private float xOffset;
+    private float xSign = 1f;
+    private float yOffset;
+    private float ySign = 1f;
+
+    // Element boxes in view coordinates, packed as left, top, right, bottom per element
+    private float[] boxes = new float[0];
+    private String[] labels = new String[0];
+    // Element index (in the document) of each box; elements without a box are skipped
+    private int[] boxElements = new int[0];
+    private int boxCount;
+    private final TextSpatialIndex spatialIndex = new TextSpatialIndex();
+    private boolean geometryDirty = true;
+    private FrameMetrics frameMetrics;
+    private final FrameSnapshotChannel<TextSnapshot> snapshots = new FrameSnapshotChannel<>(this::applySnapshot);
+    private final BoxLabelRenderer renderer;
+    private final Paint selectionPaint = new Paint();
+
+    // Selection as ascending box indices, plus scratch space for index queries
+    private int[] selectedBoxes = new int[0];
+    private int selectedCount;
+    private int[] queryScratch = new int[0];
+    private OnSelectionListener selectionListener;
+    private float dragStartX;
+    private float dragStartY;
+    private boolean dragging;
+
+    /**
+     * Immutable OCR output for one frame; a zero image size keeps the previous one
+     */
+    static final class TextSnapshot {
+        final OcrDocument document;
+        final int imageWidth;
+        final int imageHeight;
+        final int rotation;
+
+        TextSnapshot(OcrDocument document, int imageWidth, int imageHeight, int rotation) {
+            this.document = document;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+            this.rotation = rotation;
+        }
+    }
+
     public TextOverlay(Context context) {
         super(context);
         boxPaint = new Paint();
@@ -45,6 +108,9 @@ public class TextOverlay extends View {
         textPaint.setStyle(Paint.Style.FILL);
         // Add shadow to make text more visible against various backgrounds
         textPaint.setShadowLayer(3.0f, 0f, 0f, Color.BLACK);
+        renderer = new BoxLabelRenderer(boxPaint, textPaint);
+        selectionPaint.setColor(0x663F8EFC);
+        selectionPaint.setStyle(Paint.Style.FILL);
     }
 
     public TextOverlay(Context context, AttributeSet attrs) {
@@ -59,6 +125,32 @@ public class TextOverlay extends View {
         textPaint.setTextSize(32f);
         textPaint.setStyle(Paint.Style.FILL);
         textPaint.setShadowLayer(3.0f, 0f, 0f, Color.BLACK);
+        renderer = new BoxLabelRenderer(boxPaint, textPaint);
+        selectionPaint.setColor(0x663F8EFC);
+        selectionPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Records onDraw time into the detector's metrics
+     */
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        this.frameMetrics = frameMetrics;
+    }
+
+    public void setOnSelectionListener(OnSelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    /**
+     * Sets the recognized document and its properties for drawing
+     *
+     * @param document Blocks, lines and elements detected
+     * @param imageWidth Width of the input image
+     * @param imageHeight Height of the input image
+     * @param rotation Rotation of the image (in degrees)
+     */
+    public void setDocument(OcrDocument document, int imageWidth, int imageHeight, int rotation) {
+        snapshots.publish(new TextSnapshot(document, imageWidth, imageHeight, rotation));
     }
 
     /**
@@ -70,30 +162,37 @@ public class TextOverlay extends View {
      * @param rotation Rotation of the image (in degrees)
      */
     public void setElements(List<Text.Element> elements, int imageWidth, int imageHeight, int rotation) {
-        this.elements = elements;
-        this.imageWidth = imageWidth;
-        this.imageHeight = imageHeight;
-        this.rotation = rotation;
-
-        // Calculate scaling factors when image dimensions change
-        calculateTransformationMatrix();
-
-        // Request redraw
-        invalidate();
+        setDocument(OcrDocument.fromElements(elements), imageWidth, imageHeight, rotation);
     }
 
     /**
      * Sets just the text elements (uses previous image dimensions if available)
      */
     public void setElements(List<Text.Element> elements) {
-        this.elements = elements;
+        setDocument(OcrDocument.fromElements(elements), 0, 0, 0);
+    }
+
+    /**
+     * Applies a snapshot; runs on the main thread from the frame callback
+     */
+    void applySnapshot(TextSnapshot snapshot) {
+        this.document = snapshot.document;
+        this.elements = snapshot.document.getElements();
+        selectedCount = 0;
+        if (snapshot.imageWidth > 0 && snapshot.imageHeight > 0) {
+            this.imageWidth = snapshot.imageWidth;
+            this.imageHeight = snapshot.imageHeight;
+            this.rotation = snapshot.rotation;
+        }
 
         // Only calculate scaling if we have valid image dimensions
         if (imageWidth > 0 && imageHeight > 0) {
             calculateTransformationMatrix();
         }
+        rebuildGeometry();
 
-        invalidate(); // Request redraw
+        // Request redraw
+        invalidate();
     }
 
     /**
@@ -131,79 +230,175 @@ public class TextOverlay extends View {
             translationX = (viewWidth - rotatedWidth * scaleX) / 2;
         }
 
-        Log.d(TAG, String.format("Image: %dx%d, View: %dx%d, Scale: %.2f,%.2f, Translation: %.2f,%.2f",
-                imageWidth, imageHeight, viewWidth, viewHeight, scaleX, scaleY, translationX, translationY));
-    }
-
-    /**
-     * Transform an x-coordinate from image space to view space
-     */
-    private float mapX(float x) {
-        // Handle rotation
-        float rotatedX;
+        // Same per-rotation flips as before, evaluated once instead of per coordinate
         switch (rotation) {
             case 90:
-                rotatedX = imageHeight - x;  // Flip for 90 degrees
+                xOffset = imageHeight; xSign = -1f;  // Flip for 90 degrees
+                yOffset = 0; ySign = 1f;
                 break;
             case 180:
-                rotatedX = imageWidth - x;  // Flip for 180 degrees
+                xOffset = imageWidth; xSign = -1f;  // Flip for 180 degrees
+                yOffset = imageHeight; ySign = -1f;
                 break;
             case 270:
-                rotatedX = x;  // Already correct for 270 degrees
+                xOffset = 0; xSign = 1f;
+                yOffset = imageWidth; ySign = -1f;  // Flip for 270 degrees
                 break;
             default:  // 0 degrees
-                rotatedX = x;
+                xOffset = 0; xSign = 1f;
+                yOffset = 0; ySign = 1f;
                 break;
         }
+        geometryDirty = true;
+
+        Log.d(TAG, String.format("Image: %dx%d, View: %dx%d, Scale: %.2f,%.2f, Translation: %.2f,%.2f",
+                imageWidth, imageHeight, viewWidth, viewHeight, scaleX, scaleY, translationX, translationY));
+    }
 
-        // Apply scaling and translation
-        return rotatedX * scaleX + translationX;
+    /**
+     * Transform an x-coordinate from image space to view space
+     */
+    float mapX(float x) {
+        return (xOffset + xSign * x) * scaleX + translationX;
     }
 
     /**
      * Transform a y-coordinate from image space to view space
      */
-    private float mapY(float y) {
-        // Handle rotation
-        float rotatedY;
-        switch (rotation) {
-            case 90:
-                rotatedY = y;  // Already correct for 90 degrees
-                break;
-            case 180:
-                rotatedY = imageHeight - y;  // Flip for 180 degrees
-                break;
-            case 270:
-                rotatedY = imageWidth - y;  // Flip for 270 degrees
-                break;
-            default:  // 0 degrees
-                rotatedY = y;
-                break;
+    float mapY(float y) {
+        return (yOffset + ySign * y) * scaleY + translationY;
+    }
+
+    /**
+     * Maps a rectangle from image coordinates to view coordinates into {@code out} at {@code offset}
+     */
+    void mapRect(Rect imageRect, float[] out, int offset) {
+        out[offset] = mapX(imageRect.left);
+        out[offset + 1] = mapY(imageRect.top);
+        out[offset + 2] = mapX(imageRect.right);
+        out[offset + 3] = mapY(imageRect.bottom);
+    }
+
+    /**
+     * Maps every element box once into the packed buffer; only needed when the elements,
+     * the view size or the rotation change
+     */
+    private void rebuildGeometry() {
+        boxCount = 0;
+        if (elements == null || scaleX == 0 || scaleY == 0) {
+            geometryDirty = elements != null && !elements.isEmpty();
+            renderer.setContent(boxes, labels, 0);
+            spatialIndex.build(boxes, 0, getWidth(), getHeight());
+            return;
         }
 
-        // Apply scaling and translation
-        return rotatedY * scaleY + translationY;
+        int count = elements.size();
+        if (boxes.length < count * 4) {
+            boxes = new float[count * 4];
+            labels = new String[count];
+            boxElements = new int[count];
+            selectedBoxes = new int[count];
+            queryScratch = new int[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            Text.Element element = elements.get(i);
+            Rect originalRect = element.getBoundingBox();
+            if (originalRect == null) continue;
+
+            int offset = boxCount * 4;
+            mapRect(originalRect, boxes, offset);
+            labels[boxCount] = element.getText();
+            boxElements[boxCount] = i;
+            boxCount++;
+        }
+        geometryDirty = false;
+        renderer.setContent(boxes, labels, boxCount);
+        spatialIndex.build(boxes, boxCount, getWidth(), getHeight());
     }
 
     /**
-     * Maps a rectangle from image coordinates to view coordinates
+     * Text of every element intersecting the region (view coordinates), in reading order
      */
-    private Rect mapRect(Rect imageRect) {
-        if (imageRect == null) return null;
+    public String getTextInRegion(RectF region) {
+        int found = spatialIndex.query(region.left, region.top, region.right, region.bottom, queryScratch);
+        return textOf(queryScratch, found);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (selectionListener == null || boxCount == 0 || geometryDirty) {
+            return super.onTouchEvent(event);
+        }
+
+        float x = event.getX();
+        float y = event.getY();
+        int touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                int hit = spatialIndex.hitTest(x, y, touchSlop, queryScratch);
+                dragStartX = x;
+                dragStartY = y;
+                dragging = false;
+                selectedCount = 0;
+                if (hit >= 0) {
+                    selectedBoxes[selectedCount++] = hit;
+                }
+                invalidate();
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                if (!dragging && Math.abs(x - dragStartX) < touchSlop && Math.abs(y - dragStartY) < touchSlop) {
+                    return true;
+                }
+                dragging = true;
+                selectedCount = spatialIndex.query(Math.min(x, dragStartX), Math.min(y, dragStartY),
+                        Math.max(x, dragStartX), Math.max(y, dragStartY), selectedBoxes);
+                invalidate();
+                return true;
+
+            case MotionEvent.ACTION_UP:
+                if (!dragging) {
+                    performClick();
+                }
+                if (selectedCount > 0) {
+                    selectionListener.onSelectionChanged(textOf(selectedBoxes, selectedCount));
+                }
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+                selectedCount = 0;
+                invalidate();
+                return true;
+
+            default:
+                return true;
+        }
+    }
 
-        return new Rect(
-                (int) mapX(imageRect.left),
-                (int) mapY(imageRect.top),
-                (int) mapX(imageRect.right),
-                (int) mapY(imageRect.bottom)
-        );
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * Box indices (ascending) to document text, through each box's element index
+     */
+    private String textOf(int[] boxIndices, int count) {
+        int[] elementIndices = new int[count];
+        for (int i = 0; i < count; i++) {
+            elementIndices[i] = boxElements[boxIndices[i]];
+        }
+        return document.getText(elementIndices, count);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (elements == null || elements.isEmpty() || getWidth() == 0 || getHeight() == 0) {
+        int width = getWidth();
+        int height = getHeight();
+        if (elements == null || elements.isEmpty() || width == 0 || height == 0) {
             return;
         }
 
@@ -211,20 +406,24 @@ public class TextOverlay extends View {
         if (scaleX == 0 || scaleY == 0) {
             calculateTransformationMatrix();
         }
+        if (geometryDirty) {
+            rebuildGeometry();
+        }
 
-        for (Text.Element element : elements) {
-            Rect originalRect = element.getBoundingBox();
-            if (originalRect != null) {
-                // Map coordinates from image space to view space
-                Rect viewRect = mapRect(originalRect);
+        long drawStart = System.nanoTime();
 
-                // Draw the bounding box
-                canvas.drawRect(viewRect, boxPaint);
+        // Culled, batched and (on a hardware canvas) replayed from a retained display list
+        renderer.draw(canvas, width, height);
+
+        for (int i = 0; i < selectedCount; i++) {
+            int offset = selectedBoxes[i] * 4;
+            canvas.drawRect(Math.min(boxes[offset], boxes[offset + 2]), Math.min(boxes[offset + 1], boxes[offset + 3]),
+                    Math.max(boxes[offset], boxes[offset + 2]), Math.max(boxes[offset + 1], boxes[offset + 3]),
+                    selectionPaint);
+        }
 
-                // Draw the text inside/above the box
-                String text = element.getText();
-                canvas.drawText(text, viewRect.left, viewRect.top - 5, textPaint);
-            }
+        if (frameMetrics != null) {
+            frameMetrics.record(FrameMetrics.Stage.DRAW, System.nanoTime() - drawStart);
         }
     }
 
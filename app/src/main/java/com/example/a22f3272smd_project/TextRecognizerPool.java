@@ -0,0 +1,184 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.TextRecognizerOptionsInterface;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-scoped registry of TextRecognizer clients.
+ *
+ * A recognizer is created once per options instance, warmed with a dummy inference on a
+ * background thread and shared by every activity that acquires it. When the last holder
+ * releases it the client is closed after a short idle delay, so a configuration change does
+ * not pay the model load again. A prewarmed client has no holder yet and is kept until its
+ * first holder releases it or {@link #closeAll()} runs on memory pressure. First-inference and
+ * steady-state latency are tracked per client.
+ */
+public final class TextRecognizerPool {
+
+    private static final String TAG = "TextRecognizerPool";
+    private static final long IDLE_CLOSE_DELAY_MS = 30_000;
+    private static final int WARM_UP_IMAGE_SIZE = 64;
+
+    private static TextRecognizerPool instance;
+
+    private final Map<TextRecognizerOptionsInterface, PooledRecognizer> recognizers = new HashMap<>();
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private TextRecognizerPool() {
+    }
+
+    public static synchronized TextRecognizerPool getInstance() {
+        if (instance == null) {
+            instance = new TextRecognizerPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the shared recognizer for the options, creating and warming it if needed.
+     * Every call must be balanced by {@link #release(PooledRecognizer)}.
+     */
+    public synchronized PooledRecognizer acquire(TextRecognizerOptionsInterface options) {
+        PooledRecognizer pooled = recognizers.get(options);
+        if (pooled == null) {
+            pooled = new PooledRecognizer(options);
+            recognizers.put(options, pooled);
+            warmUp(pooled);
+        }
+        pooled.refCount++;
+        mainHandler.removeCallbacks(pooled.idleClose);
+        return pooled;
+    }
+
+    /**
+     * Creates and warms a recognizer without holding on to it, e.g. before the screen opens.
+     * No idle close is armed until a holder has acquired and released it.
+     */
+    public synchronized void prewarm(TextRecognizerOptionsInterface options) {
+        if (!recognizers.containsKey(options)) {
+            PooledRecognizer pooled = new PooledRecognizer(options);
+            recognizers.put(options, pooled);
+            warmUp(pooled);
+        }
+    }
+
+    public synchronized void release(PooledRecognizer pooled) {
+        if (pooled.refCount > 0 && --pooled.refCount == 0) {
+            mainHandler.postDelayed(pooled.idleClose, IDLE_CLOSE_DELAY_MS);
+        }
+    }
+
+    /**
+     * Closes every recognizer no screen holds, prewarmed ones included, without waiting for
+     * the idle delay (e.g. on memory pressure). Held ones may have a process() in flight and
+     * are left alone.
+     */
+    public synchronized void closeAll() {
+        Iterator<PooledRecognizer> iterator = recognizers.values().iterator();
+        while (iterator.hasNext()) {
+            PooledRecognizer pooled = iterator.next();
+            if (pooled.refCount > 0) continue;
+            mainHandler.removeCallbacks(pooled.idleClose);
+            pooled.close();
+            iterator.remove();
+        }
+    }
+
+    private synchronized void closeIfIdle(PooledRecognizer pooled) {
+        if (pooled.refCount == 0 && recognizers.get(pooled.options) == pooled) {
+            recognizers.remove(pooled.options);
+            pooled.close();
+        }
+    }
+
+    private void warmUp(PooledRecognizer pooled) {
+        warmUpExecutor.execute(() -> {
+            // Client construction and the first inference both load the model, keep them off the UI thread
+            TextRecognizer recognizer = pooled.getClient();
+            Bitmap blank = Bitmap.createBitmap(WARM_UP_IMAGE_SIZE, WARM_UP_IMAGE_SIZE, Bitmap.Config.ARGB_8888);
+            long start = SystemClock.elapsedRealtime();
+            recognizer.process(InputImage.fromBitmap(blank, 0))
+                    .addOnCompleteListener(warmUpExecutor, task -> {
+                        pooled.recordLatency(SystemClock.elapsedRealtime() - start);
+                        Log.d(TAG, "Warmed up in " + pooled.getFirstInferenceMillis() + " ms");
+                    });
+        });
+    }
+
+    /**
+     * Shared recognizer handle that records per-call latency
+     */
+    public final class PooledRecognizer {
+        private final TextRecognizerOptionsInterface options;
+        private final Runnable idleClose = () -> closeIfIdle(this);
+        private final AtomicLong firstInferenceMillis = new AtomicLong(-1);
+        private final AtomicLong steadyStateTotalMillis = new AtomicLong();
+        private final AtomicLong steadyStateCount = new AtomicLong();
+        private TextRecognizer client;
+        private int refCount;
+
+        private PooledRecognizer(TextRecognizerOptionsInterface options) {
+            this.options = options;
+        }
+
+        private synchronized TextRecognizer getClient() {
+            if (client == null) {
+                client = TextRecognition.getClient(options);
+            }
+            return client;
+        }
+
+        private synchronized void close() {
+            if (client != null) {
+                client.close();
+                client = null;
+            }
+        }
+
+        public Task<Text> process(InputImage image) {
+            long start = SystemClock.elapsedRealtime();
+            return getClient().process(image)
+                    .addOnCompleteListener(task -> recordLatency(SystemClock.elapsedRealtime() - start));
+        }
+
+        private void recordLatency(long millis) {
+            if (!firstInferenceMillis.compareAndSet(-1, millis)) {
+                steadyStateTotalMillis.addAndGet(millis);
+                steadyStateCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Latency of the first inference (model load included), or -1 if none has finished
+         */
+        public long getFirstInferenceMillis() {
+            return firstInferenceMillis.get();
+        }
+
+        /**
+         * Average latency of every inference after the first, or -1 if there are none yet
+         */
+        public long getSteadyStateMillis() {
+            long count = steadyStateCount.get();
+            return count == 0 ? -1 : steadyStateTotalMillis.get() / count;
+        }
+    }
+}
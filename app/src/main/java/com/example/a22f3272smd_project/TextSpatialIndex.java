@@ -0,0 +1,179 @@
+package com.example.a22f3272smd_project;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the overlay's box buffer (left, top, right, bottom per box, in view
+ * coordinates) for hit testing and region queries.
+ *
+ * The grid is sized so a cell holds a handful of boxes on average and is stored as two flat
+ * arrays (cell offsets, then box indices per cell), so a query only visits the cells it
+ * overlaps instead of scanning every box. Results come back in box order, which is reading
+ * order. Rebuilt on the main thread whenever the overlay geometry changes; not thread-safe.
+ */
+final class TextSpatialIndex {
+
+    private static final int BOXES_PER_CELL = 4;
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private float[] boxes = new float[0];
+    private int count;
+    private int columns = 1;
+    private int rows = 1;
+    private float cellWidth = 1;
+    private float cellHeight = 1;
+
+    private int[] cellStart = new int[2];
+    private int[] cellItems = new int[0];
+
+    // Per-box stamp so a box spanning several cells is reported once per query
+    private int[] seen = new int[0];
+    private int stamp;
+
+    /**
+     * Indexes the first {@code count} boxes; boxes outside the width x height area are left out
+     */
+    void build(float[] boxes, int count, int width, int height) {
+        this.boxes = boxes;
+        this.count = count;
+        if (width <= 0 || height <= 0) {
+            this.count = 0;
+            return;
+        }
+
+        int cells = Math.max(1, count / BOXES_PER_CELL);
+        columns = clamp(Math.round((float) Math.sqrt(cells * (float) width / height)), 1, MAX_CELLS_PER_SIDE);
+        rows = clamp((cells + columns - 1) / columns, 1, MAX_CELLS_PER_SIDE);
+        cellWidth = (float) width / columns;
+        cellHeight = (float) height / rows;
+
+        int cellCount = columns * rows;
+        if (cellStart.length < cellCount + 1) {
+            cellStart = new int[cellCount + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cellCount + 1, 0);
+        }
+        if (seen.length < count) {
+            seen = new int[count];
+            stamp = 0;
+        }
+
+        // Count per cell, turn counts into offsets, then fill
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            float left = Math.min(boxes[offset], boxes[offset + 2]);
+            float right = Math.max(boxes[offset], boxes[offset + 2]);
+            float top = Math.min(boxes[offset + 1], boxes[offset + 3]);
+            float bottom = Math.max(boxes[offset + 1], boxes[offset + 3]);
+            if (right < 0 || bottom < 0 || left > width || top > height) continue;
+
+            for (int row = rowOf(top); row <= rowOf(bottom); row++) {
+                for (int column = columnOf(left); column <= columnOf(right); column++) {
+                    cellStart[row * columns + column + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellItems.length < total) {
+            cellItems = new int[total];
+        }
+
+        int[] cursor = Arrays.copyOf(cellStart, cellCount);
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            float left = Math.min(boxes[offset], boxes[offset + 2]);
+            float right = Math.max(boxes[offset], boxes[offset + 2]);
+            float top = Math.min(boxes[offset + 1], boxes[offset + 3]);
+            float bottom = Math.max(boxes[offset + 1], boxes[offset + 3]);
+            if (right < 0 || bottom < 0 || left > width || top > height) continue;
+
+            for (int row = rowOf(top); row <= rowOf(bottom); row++) {
+                for (int column = columnOf(left); column <= columnOf(right); column++) {
+                    cellItems[cursor[row * columns + column]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the indices of boxes intersecting the region into {@code out} in ascending order
+     * and returns how many there are. {@code out} must hold at least the indexed box count.
+     */
+    int query(float left, float top, float right, float bottom, int[] out) {
+        if (count == 0) return 0;
+        if (++stamp == 0) {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+
+        int found = 0;
+        for (int row = rowOf(top); row <= rowOf(bottom); row++) {
+            for (int column = columnOf(left); column <= columnOf(right); column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int box = cellItems[i];
+                    if (seen[box] == stamp) continue;
+                    seen[box] = stamp;
+                    if (intersects(box, left, top, right, bottom)) {
+                        out[found++] = box;
+                    }
+                }
+            }
+        }
+        Arrays.sort(out, 0, found);
+        return found;
+    }
+
+    /**
+     * Box under the point, allowing {@code slop} pixels around it; the closest box wins and
+     * the smaller one on a tie (a word inside a larger overlapping box). -1 if none.
+     */
+    int hitTest(float x, float y, float slop, int[] scratch) {
+        int found = query(x - slop, y - slop, x + slop, y + slop, scratch);
+        int best = -1;
+        float bestDistance = Float.MAX_VALUE;
+        float bestArea = Float.MAX_VALUE;
+        for (int i = 0; i < found; i++) {
+            int offset = scratch[i] * 4;
+            float left = Math.min(boxes[offset], boxes[offset + 2]);
+            float right = Math.max(boxes[offset], boxes[offset + 2]);
+            float top = Math.min(boxes[offset + 1], boxes[offset + 3]);
+            float bottom = Math.max(boxes[offset + 1], boxes[offset + 3]);
+
+            float dx = Math.max(0, Math.max(left - x, x - right));
+            float dy = Math.max(0, Math.max(top - y, y - bottom));
+            float distance = dx * dx + dy * dy;
+            float area = (right - left) * (bottom - top);
+            if (distance < bestDistance || (distance == bestDistance && area < bestArea)) {
+                best = scratch[i];
+                bestDistance = distance;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    private boolean intersects(int box, float left, float top, float right, float bottom) {
+        int offset = box * 4;
+        return Math.max(boxes[offset], boxes[offset + 2]) >= left
+                && Math.min(boxes[offset], boxes[offset + 2]) <= right
+                && Math.max(boxes[offset + 1], boxes[offset + 3]) >= top
+                && Math.min(boxes[offset + 1], boxes[offset + 3]) <= bottom;
+    }
+
+    private int columnOf(float x) {
+        return clamp((int) (x / cellWidth), 0, columns - 1);
+    }
+
+    private int rowOf(float y) {
+        return clamp((int) (y / cellHeight), 0, rows - 1);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
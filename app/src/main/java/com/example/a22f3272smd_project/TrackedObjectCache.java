@@ -0,0 +1,93 @@
+package com.example.a22f3272smd_project;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.objects.DetectedObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live object state keyed by the STREAM_MODE tracking ID.
+ *
+ * Labels and boxes persist between frames, and an object that drops out of a few frames is
+ * kept for a short grace period. {@link #update} reports whether anything the user can see
+ * changed (an object appeared, disappeared or changed label) so the UI is only touched then.
+ */
+public class TrackedObjectCache {
+
+    private static final long DISAPPEAR_GRACE_MS = 500;
+
+    /**
+     * Last known state of one tracked object
+     */
+    public static final class TrackedObject {
+        public final int trackingId;
+        public final Rect box = new Rect();
+        public String label;
+        public float confidence;
+        long lastSeenAt;
+
+        TrackedObject(int trackingId) {
+            this.trackingId = trackingId;
+        }
+    }
+
+    private final Map<Integer, TrackedObject> objects = new HashMap<>();
+
+    /**
+     * Merges one frame of detections. Returns true if an object appeared, disappeared
+     * or changed label.
+     */
+    public boolean update(List<DetectedObject> detectedObjects, long nowMillis) {
+        boolean changed = false;
+
+        for (DetectedObject detectedObject : detectedObjects) {
+            Integer trackingId = detectedObject.getTrackingId();
+            if (trackingId == null) continue;
+
+            TrackedObject tracked = objects.get(trackingId);
+            if (tracked == null) {
+                tracked = new TrackedObject(trackingId);
+                objects.put(trackingId, tracked);
+                changed = true;
+            }
+
+            // Keep the best label of this frame; STREAM_MODE often reports none at first
+            DetectedObject.Label best = null;
+            for (DetectedObject.Label label : detectedObject.getLabels()) {
+                if (best == null || label.getConfidence() > best.getConfidence()) {
+                    best = label;
+                }
+            }
+            String label = best != null ? best.getText() : "Unknown";
+            if (!label.equals(tracked.label)) {
+                changed = true;
+                tracked.label = label;
+            }
+            tracked.confidence = best != null ? best.getConfidence() : 0f;
+            tracked.box.set(detectedObject.getBoundingBox());
+            tracked.lastSeenAt = nowMillis;
+        }
+
+        Iterator<TrackedObject> iterator = objects.values().iterator();
+        while (iterator.hasNext()) {
+            if (nowMillis - iterator.next().lastSeenAt > DISAPPEAR_GRACE_MS) {
+                iterator.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public List<TrackedObject> getObjects() {
+        return new ArrayList<>(objects.values());
+    }
+
+    public void clear() {
+        objects.clear();
+    }
+}
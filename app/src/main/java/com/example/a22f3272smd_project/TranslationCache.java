@@ -0,0 +1,153 @@
+package com.example.a22f3272smd_project;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier translation cache: an in-memory LRU in front of an optional persistent {@link Store}.
+ *
+ * Keys are built by the caller from {@link #normalize(String)}, so lines that differ only in
+ * case, spacing or Unicode form share one entry. Store hits are promoted into memory. Safe to
+ * call from any thread; the store is only touched from the caller's (background) thread.
+ */
+public final class TranslationCache {
+
+    /**
+     * Persistent tier, e.g. {@link TranslationCacheDatabase#store}
+     */
+    public interface Store {
+        Map<String, String> loadAll(Collection<String> keys);
+
+        void saveAll(Map<String, String> entries);
+    }
+
+    private final int maxEntries;
+    private final Store store;
+    private final LinkedHashMap<String, String> memory;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param store persistent tier, or null for memory only
+     */
+    public TranslationCache(int maxEntries, Store store) {
+        this.maxEntries = maxEntries;
+        this.store = store;
+        this.memory = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > TranslationCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * NFKC, lower case, collapsed whitespace; signage read as "EXIT " and "Exit" is one key
+     */
+    public static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(normalized.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Resolves what it can from memory, then the store, into {@code found}, and returns the
+     * keys neither tier has
+     */
+    public List<String> lookup(Collection<String> keys, Map<String, String> found) {
+        List<String> missing = new ArrayList<>();
+        synchronized (memory) {
+            for (String key : keys) {
+                String translation = memory.get(key);
+                if (translation != null) {
+                    found.put(key, translation);
+                    memoryHits.incrementAndGet();
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        if (missing.isEmpty() || store == null) {
+            misses.addAndGet(missing.size());
+            return missing;
+        }
+
+        Map<String, String> stored = store.loadAll(missing);
+        if (!stored.isEmpty()) {
+            found.putAll(stored);
+            storeHits.addAndGet(stored.size());
+            synchronized (memory) {
+                memory.putAll(stored);
+            }
+            List<String> stillMissing = new ArrayList<>(missing.size() - stored.size());
+            for (String key : missing) {
+                if (!stored.containsKey(key)) {
+                    stillMissing.add(key);
+                }
+            }
+            missing = stillMissing;
+        }
+        misses.addAndGet(missing.size());
+        return missing;
+    }
+
+    /**
+     * Adds fresh translations to both tiers
+     */
+    public void putAll(Map<String, String> entries) {
+        if (entries.isEmpty()) return;
+        synchronized (memory) {
+            memory.putAll(entries);
+        }
+        if (store != null) {
+            store.saveAll(entries);
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getStoreHits() {
+        return storeHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Share of lookups answered without the translator, 0 before the first lookup
+     */
+    public float getHitRate() {
+        long hits = memoryHits.get() + storeHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "memory=%d store=%d misses=%d hit rate=%.0f%%",
+                getMemoryHits(), getStoreHits(), getMisses(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.a22f3272smd_project;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent tier of the translation cache. Kept apart from the scan history so it can be
+ * trimmed or dropped without touching user data.
+ */
+@Database(entities = {CachedTranslation.class}, version = 1, exportSchema = false)
+public abstract class TranslationCacheDatabase extends RoomDatabase {
+
+    private static final int MAX_QUERY_KEYS = 500;
+    private static final int MAX_ROWS = 20_000;
+
+    private static volatile TranslationCacheDatabase instance;
+
+    public abstract CachedTranslationDao cachedTranslationDao();
+
+    public static TranslationCacheDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TranslationCacheDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    TranslationCacheDatabase.class, "translation_cache.db")
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The database as a {@link TranslationCache.Store}; called on the translation thread
+     */
+    public static TranslationCache.Store store(Context context) {
+        return store(getInstance(context).cachedTranslationDao(), MAX_ROWS);
+    }
+
+    /**
+     * Store over any DAO, trimmed to the newest {@code maxRows} rows after each save
+     */
+    static TranslationCache.Store store(CachedTranslationDao dao, int maxRows) {
+        return new TranslationCache.Store() {
+            @Override
+            public Map<String, String> loadAll(Collection<String> keys) {
+                Map<String, String> found = new HashMap<>();
+                List<String> chunk = new ArrayList<>(Math.min(keys.size(), MAX_QUERY_KEYS));
+                for (String key : keys) {
+                    chunk.add(key);
+                    if (chunk.size() == MAX_QUERY_KEYS) {
+                        collect(dao.findAll(chunk), found);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    collect(dao.findAll(chunk), found);
+                }
+                return found;
+            }
+
+            @Override
+            public void saveAll(Map<String, String> entries) {
+                long now = System.currentTimeMillis();
+                List<CachedTranslation> rows = new ArrayList<>(entries.size());
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    rows.add(new CachedTranslation(entry.getKey(), entry.getValue(), now));
+                }
+                dao.insertAll(rows);
+                if (dao.count() > maxRows) {
+                    dao.trimTo(maxRows);
+                }
+            }
+        };
+    }
+
+    private static void collect(List<CachedTranslation> rows, Map<String, String> found) {
+        for (CachedTranslation row : rows) {
+            found.put(row.cacheKey, row.translation);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.a22f3272smd_project;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional step after OCR that translates recognized lines through a {@link TranslationCache}.
+ *
+ * Each request is normalized into cache keys, resolved from memory, then the persistent tier,
+ * and only the remaining distinct lines go to the {@link Backend}. Work runs on one background
+ * thread and only the latest request is kept: live OCR produces text faster than a cold
+ * translator can keep up, and older requests are stale by the time they would run.
+ */
+public final class TranslationStage {
+
+    private static final String TAG = "TranslationStage";
+
+    /**
+     * Translates one line synchronously; called on the stage thread only. The ML Kit
+     * implementation is {@link MlKitTranslationBackend}; tests can plug in a local fake.
+     */
+    public interface Backend {
+        String translate(String text) throws Exception;
+
+        void close();
+    }
+
+    /**
+     * Receives one translation per input line, in input order. Lines the backend failed on
+     * come back untranslated.
+     */
+    public interface Callback {
+        void onTranslated(List<String> lines, List<String> translations);
+    }
+
+    /**
+     * Hears about failed backend and store calls; the default logs them. The stage keeps
+     * going either way, so tests can plug in a recorder instead of android.util.Log.
+     */
+    public interface ErrorListener {
+        void onError(String message, Exception e);
+    }
+
+    private static final class Request {
+        final List<String> lines;
+        final Callback callback;
+
+        Request(List<String> lines, Callback callback) {
+            this.lines = lines;
+            this.callback = callback;
+        }
+    }
+
+    private final Backend backend;
+    private final TranslationCache cache;
+    private final String keyPrefix;
+    private final Executor callbackExecutor;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicLong backendCalls = new AtomicLong();
+    private final AtomicLong backendNanos = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private boolean closed;
+    private volatile ErrorListener errorListener = (message, e) -> Log.w(TAG, message, e);
+
+    /**
+     * @param languagePair e.g. "en>es"; part of every cache key so pairs never mix
+     * @param callbackExecutor where results are delivered, usually the main executor
+     */
+    public TranslationStage(Backend backend, TranslationCache cache, String languagePair,
+                            Executor callbackExecutor) {
+        this.backend = backend;
+        this.cache = cache;
+        this.keyPrefix = languagePair + '\u0000';
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Replaces the default logging of failed backend and store calls
+     */
+    public void setErrorListener(ErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * Queues the lines, replacing any request that has not started yet. Ignored once closed.
+     */
+    public synchronized void translate(List<String> lines, Callback callback) {
+        // A late OCR result after onDestroy would otherwise hit the shut down executor
+        if (closed) return;
+        Request previous = pending.getAndSet(new Request(new ArrayList<>(lines), callback));
+        if (previous == null) {
+            executor.execute(this::drain);
+        } else {
+            superseded.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        Request request;
+        while ((request = pending.getAndSet(null)) != null) {
+            List<String> translations = run(request.lines);
+            Request done = request;
+            callbackExecutor.execute(() -> done.callback.onTranslated(done.lines, translations));
+        }
+    }
+
+    private List<String> run(List<String> lines) {
+        // Distinct keys in first-seen order, each remembering the line it came from
+        Map<String, String> sourceByKey = new LinkedHashMap<>();
+        for (String line : lines) {
+            String normalized = TranslationCache.normalize(line);
+            if (!normalized.isEmpty()) {
+                sourceByKey.putIfAbsent(keyPrefix + normalized, line);
+            }
+        }
+
+        Map<String, String> translated = new LinkedHashMap<>();
+        List<String> missing;
+        try {
+            missing = cache.lookup(sourceByKey.keySet(), translated);
+        } catch (RuntimeException e) {
+            // Unreadable persistent tier: keep the memory hits, translate the rest
+            errorListener.onError("Could not read cached translations", e);
+            missing = new ArrayList<>();
+            for (String key : sourceByKey.keySet()) {
+                if (!translated.containsKey(key)) {
+                    missing.add(key);
+                }
+            }
+        }
+
+        Map<String, String> fresh = new LinkedHashMap<>();
+        for (String key : missing) {
+            long start = System.nanoTime();
+            try {
+                String translation = backend.translate(sourceByKey.get(key).trim());
+                fresh.put(key, translation);
+            } catch (Exception e) {
+                errorListener.onError("Translation failed, keeping the original line", e);
+            } finally {
+                backendCalls.incrementAndGet();
+                backendNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        try {
+            cache.putAll(fresh);
+        } catch (RuntimeException e) {
+            // A failing persistent tier only costs us the cache, not the translations
+            errorListener.onError("Could not store translations", e);
+        }
+        translated.putAll(fresh);
+
+        List<String> out = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String translation = translated.get(keyPrefix + TranslationCache.normalize(line));
+            out.add(translation != null ? translation : line);
+        }
+        return out;
+    }
+
+    public TranslationCache getCache() {
+        return cache;
+    }
+
+    public long getBackendCalls() {
+        return backendCalls.get();
+    }
+
+    /**
+     * Mean backend time per translated line, -1 before the first call
+     */
+    public long getMeanBackendMillis() {
+        long calls = backendCalls.get();
+        return calls == 0 ? -1 : backendNanos.get() / calls / 1_000_000;
+    }
+
+    public long getSupersededRequests() {
+        return superseded.get();
+    }
+
+    /**
+     * Stops the stage; the backend is closed after any running request
+     */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        pending.set(null);
+        executor.execute(backend::close);
+        executor.shutdown();
+    }
+}
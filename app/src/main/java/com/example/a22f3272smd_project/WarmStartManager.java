@@ -0,0 +1,223 @@
+package com.example.a22f3272smd_project;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+
+import com.google.android.gms.tasks.Task;
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
+import com.google.mlkit.vision.barcode.BarcodeScanning;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+import com.google.mlkit.vision.objects.ObjectDetector;
+import com.google.mlkit.vision.objects.defaults.ObjectDetectorOptions;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-scoped warm start for the detector screens.
+ *
+ * {@link #warmUp} starts CameraX provider initialization and builds the barcode, face and
+ * object detectors on a background thread, each followed by a dummy inference so its model is
+ * loaded before a screen asks for it. The clients are then shared for the life of the process
+ * instead of being built and closed by every activity. Screens hold them between
+ * {@link #acquire()} and {@link #release()}; they are only closed on memory pressure while no
+ * screen holds them, and rebuilt on the next request.
+ */
+public final class WarmStartManager implements ComponentCallbacks2 {
+
+    private static final String TAG = "WarmStartManager";
+    private static final int WARM_UP_IMAGE_SIZE = 64;
+
+    public static final float MIN_FACE_SIZE = 0.15f;
+
+    private static WarmStartManager instance;
+
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+    private Context appContext;
+    private boolean warmedUp = false;
+    private int holders = 0;
+
+    private BarcodeScanner barcodeScanner;
+    // Format-restricted scanners, keyed by their format bit mask
+    private final Map<Integer, BarcodeScanner> formatScanners = new HashMap<>();
+    private FaceDetector faceDetector;
+    private ObjectDetector objectDetector;
+    private ObjectDetector streamObjectDetector;
+
+    private WarmStartManager() {
+    }
+
+    public static synchronized WarmStartManager getInstance() {
+        if (instance == null) {
+            instance = new WarmStartManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts camera and detector initialization in the background. Safe to call repeatedly.
+     */
+    public synchronized void warmUp(Context context) {
+        if (appContext == null) {
+            appContext = context.getApplicationContext();
+            appContext.registerComponentCallbacks(this);
+        }
+        if (warmedUp) return;
+        warmedUp = true;
+
+        long start = SystemClock.elapsedRealtime();
+        // CameraX caches the provider, so the screens' getInstance() calls reuse this one
+        ProcessCameraProvider.getInstance(appContext).addListener(
+                () -> Log.d(TAG, "Camera provider ready in " + (SystemClock.elapsedRealtime() - start) + " ms"),
+                warmUpExecutor);
+
+        TextRecognizerPool.getInstance().prewarm(TextRecognizerOptions.DEFAULT_OPTIONS);
+
+        warmUpExecutor.execute(() -> {
+            warm("barcode", getBarcodeScanner()::process);
+            warm("face", getFaceDetector()::process);
+            warm("object", getObjectDetector(false)::process);
+            warm("object stream", getObjectDetector(true)::process);
+        });
+    }
+
+    public synchronized void acquire() {
+        holders++;
+    }
+
+    public synchronized void release() {
+        if (holders > 0) holders--;
+    }
+
+    public synchronized BarcodeScanner getBarcodeScanner() {
+        if (barcodeScanner == null) {
+            barcodeScanner = BarcodeScanning.getClient();
+        }
+        return barcodeScanner;
+    }
+
+    /**
+     * Shared scanner that only looks for the given formats; not warmed up front
+     */
+    public synchronized BarcodeScanner getBarcodeScanner(int format, int... moreFormats) {
+        int mask = format;
+        for (int more : moreFormats) {
+            mask |= more;
+        }
+        BarcodeScanner scanner = formatScanners.get(mask);
+        if (scanner == null) {
+            scanner = BarcodeScanning.getClient(new BarcodeScannerOptions.Builder()
+                    .setBarcodeFormats(format, moreFormats)
+                    .build());
+            formatScanners.put(mask, scanner);
+        }
+        return scanner;
+    }
+
+    public synchronized FaceDetector getFaceDetector() {
+        if (faceDetector == null) {
+            FaceDetectorOptions options = new FaceDetectorOptions.Builder()
+                    .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                    .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
+                    .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                    .setMinFaceSize(MIN_FACE_SIZE)
+                    .enableTracking() // Enable face tracking for smoother updates
+                    .build();
+            faceDetector = com.google.mlkit.vision.face.FaceDetection.getClient(options);
+        }
+        return faceDetector;
+    }
+
+    /**
+     * @param streamMode STREAM_MODE with tracking for live analysis, SINGLE_IMAGE_MODE for captures
+     */
+    public synchronized ObjectDetector getObjectDetector(boolean streamMode) {
+        ObjectDetector detector = streamMode ? streamObjectDetector : objectDetector;
+        if (detector == null) {
+            ObjectDetectorOptions options = new ObjectDetectorOptions.Builder()
+                    .setDetectorMode(streamMode
+                            ? ObjectDetectorOptions.STREAM_MODE
+                            : ObjectDetectorOptions.SINGLE_IMAGE_MODE)
+                    .enableClassification()
+                    .enableMultipleObjects()
+                    .build();
+            detector = com.google.mlkit.vision.objects.ObjectDetection.getClient(options);
+            if (streamMode) {
+                streamObjectDetector = detector;
+            } else {
+                objectDetector = detector;
+            }
+        }
+        return detector;
+    }
+
+    private <T> void warm(String name, FramePipeline.Detector<T> detector) {
+        Bitmap blank = Bitmap.createBitmap(WARM_UP_IMAGE_SIZE, WARM_UP_IMAGE_SIZE, Bitmap.Config.ARGB_8888);
+        long start = SystemClock.elapsedRealtime();
+        Task<T> task = detector.process(InputImage.fromBitmap(blank, 0));
+        task.addOnCompleteListener(warmUpExecutor, result ->
+                Log.d(TAG, name + " detector warmed up in " + (SystemClock.elapsedRealtime() - start) + " ms"));
+    }
+
+    /**
+     * Closes the shared detectors if no screen is using them; they are rebuilt on demand
+     */
+    private synchronized void closeIfUnused() {
+        if (holders > 0) return;
+
+        if (barcodeScanner != null) {
+            barcodeScanner.close();
+            barcodeScanner = null;
+        }
+        for (BarcodeScanner scanner : formatScanners.values()) {
+            scanner.close();
+        }
+        formatScanners.clear();
+        if (faceDetector != null) {
+            faceDetector.close();
+            faceDetector = null;
+        }
+        if (objectDetector != null) {
+            objectDetector.close();
+            objectDetector = null;
+        }
+        if (streamObjectDetector != null) {
+            streamObjectDetector.close();
+            streamObjectDetector = null;
+        }
+        // Text recognizers no screen holds, including the prewarmed one no idle timer would close
+        TextRecognizerPool.getInstance().closeAll();
+        // The next warmUp() (e.g. MainActivity coming back) loads them again
+        warmedUp = false;
+        Log.d(TAG, "Closed idle detectors");
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            closeIfUnused();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        closeIfUnused();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.a22f3272smd_project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the barcode payload classification done before opening a result.
+ * Run with ./gradlew :app:testDebugUnitTest -PrunBenchmarks --tests '*JvmBenchmarks'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BarcodeClassifierBenchmark {
+
+    // Mix of what the scanner sees in practice: product codes, URLs and free text
+    private static final String[] PAYLOADS = {
+            "4006381333931",
+            "036000291452",
+            "https://example.com/product/42",
+            "www.example.org",
+            "example.net",
+            "shop.example.de/item",
+            "WIFI:S:Warehouse;T:WPA;P:secret;;",
+            "LOT 2024-0117 BATCH A",
+    };
+
+    private int next;
+
+    private String nextPayload() {
+        String payload = PAYLOADS[next];
+        next = (next + 1) % PAYLOADS.length;
+        return payload;
+    }
+
+    @Benchmark
+    public boolean isProductBarcode() {
+        return BarcodeClassifier.isProductBarcode(nextPayload());
+    }
+
+    @Benchmark
+    public String parseUrl() {
+        return BarcodeClassifier.parseUrl(nextPayload());
+    }
+
+    /**
+     * Full typed classification, as done for every accepted frame in BarcodeDetection
+     */
+    @Benchmark
+    public BarcodePayload classify() {
+        return BarcodeClassifier.classify(nextPayload());
+    }
+}
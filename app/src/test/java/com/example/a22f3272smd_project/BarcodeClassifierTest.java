@@ -0,0 +1,125 @@
+package com.example.a22f3272smd_project;
+
+import com.google.mlkit.vision.barcode.common.Barcode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BarcodeClassifierTest {
+
+    @Test
+    public void productFormats_validCheckDigit() {
+        assertEquals(BarcodePayload.Type.PRODUCT,
+                BarcodeClassifier.classify("4006381333931", Barcode.FORMAT_EAN_13).type);
+        assertEquals(BarcodePayload.Type.PRODUCT,
+                BarcodeClassifier.classify("96385074", Barcode.FORMAT_EAN_8).type);
+        assertEquals(BarcodePayload.Type.PRODUCT,
+                BarcodeClassifier.classify("036000291452", Barcode.FORMAT_UPC_A).type);
+    }
+
+    @Test
+    public void productFormats_badCheckDigitOrLength() {
+        assertEquals(BarcodePayload.Type.INVALID,
+                BarcodeClassifier.classify("4006381333932", Barcode.FORMAT_EAN_13).type);
+        assertEquals(BarcodePayload.Type.INVALID,
+                BarcodeClassifier.classify("96385075", Barcode.FORMAT_EAN_8).type);
+        assertEquals(BarcodePayload.Type.INVALID,
+                BarcodeClassifier.classify("36000291452", Barcode.FORMAT_UPC_A).type);
+    }
+
+    @Test
+    public void upcE_validatedThroughUpcAExpansion() {
+        // Would fail as a GTIN-8; its UPC-A form 04210000526 has check digit 4
+        assertEquals("042100005264", BarcodeClassifier.expandUpcE("04252614"));
+        assertEquals(BarcodePayload.Type.PRODUCT,
+                BarcodeClassifier.classify("04252614", Barcode.FORMAT_UPC_E).type);
+        assertEquals(BarcodePayload.Type.INVALID,
+                BarcodeClassifier.classify("04252615", Barcode.FORMAT_UPC_E).type);
+
+        assertEquals("012300000445", BarcodeClassifier.expandUpcE("01234435"));
+        assertEquals("012340000055", BarcodeClassifier.expandUpcE("01234545"));
+        assertEquals("012345000070", BarcodeClassifier.expandUpcE("01234570"));
+        assertNull(BarcodeClassifier.expandUpcE("21234570"));
+    }
+
+    @Test
+    public void numericPayloadsOfOtherFormats_areText() {
+        assertEquals(BarcodePayload.Type.TEXT,
+                BarcodeClassifier.classify("4006381333932", Barcode.FORMAT_CODE_128).type);
+        assertEquals(BarcodePayload.Type.TEXT,
+                BarcodeClassifier.classify("12345678", Barcode.FORMAT_ITF).type);
+        assertEquals(BarcodePayload.Type.TEXT,
+                BarcodeClassifier.classify("00012345678905", Barcode.FORMAT_QR_CODE).type);
+    }
+
+    @Test
+    public void unknownFormat_neverRejects() {
+        assertEquals(BarcodePayload.Type.PRODUCT, BarcodeClassifier.classify("4006381333931").type);
+        assertEquals(BarcodePayload.Type.TEXT, BarcodeClassifier.classify("4006381333932").type);
+    }
+
+    @Test
+    public void wifi() {
+        BarcodePayload payload = BarcodeClassifier.classify("WIFI:T:WPA;S:Warehouse;P:secret;;",
+                Barcode.FORMAT_QR_CODE);
+        assertEquals(BarcodePayload.Type.WIFI, payload.type);
+        assertEquals("Warehouse", payload.value);
+        assertEquals("secret", payload.password);
+        assertEquals("WPA", payload.encryption);
+    }
+
+    @Test
+    public void wifi_lastFieldWithoutSemicolon() {
+        BarcodePayload payload = BarcodeClassifier.classify("WIFI:S:Home;T:WPA;P:pass",
+                Barcode.FORMAT_QR_CODE);
+        assertEquals(BarcodePayload.Type.WIFI, payload.type);
+        assertEquals("Home", payload.value);
+        assertEquals("pass", payload.password);
+    }
+
+    @Test
+    public void wifi_escapedCharacters() {
+        BarcodePayload payload = BarcodeClassifier.classify("WIFI:S:My\\;Net;P:a\\:b\\\\;;",
+                Barcode.FORMAT_QR_CODE);
+        assertEquals("My;Net", payload.value);
+        assertEquals("a:b\\", payload.password);
+    }
+
+    @Test
+    public void vCard() {
+        BarcodePayload payload = BarcodeClassifier.classify(
+                "BEGIN:VCARD\nVERSION:3.0\nFN:Jane Doe\nTEL;TYPE=CELL:+15551234\nEMAIL:jane@example.org\nEND:VCARD",
+                Barcode.FORMAT_QR_CODE);
+        assertEquals(BarcodePayload.Type.VCARD, payload.type);
+        assertEquals("Jane Doe", payload.value);
+        assertEquals("+15551234", payload.phone);
+        assertEquals("jane@example.org", payload.email);
+    }
+
+    @Test
+    public void geo() {
+        BarcodePayload payload = BarcodeClassifier.classify("geo:52.52,13.405;u=10", Barcode.FORMAT_QR_CODE);
+        assertEquals(BarcodePayload.Type.GEO, payload.type);
+        assertEquals(52.52, payload.latitude, 1e-9);
+        assertEquals(13.405, payload.longitude, 1e-9);
+
+        assertEquals(BarcodePayload.Type.TEXT,
+                BarcodeClassifier.classify("geo:95,10", Barcode.FORMAT_QR_CODE).type);
+        assertEquals(BarcodePayload.Type.TEXT,
+                BarcodeClassifier.classify("geo:north", Barcode.FORMAT_QR_CODE).type);
+    }
+
+    @Test
+    public void urls() {
+        BarcodePayload payload = BarcodeClassifier.classify("https://example.com/product/42",
+                Barcode.FORMAT_QR_CODE);
+        assertEquals(BarcodePayload.Type.URL, payload.type);
+        assertEquals("https://example.com/product/42", payload.value);
+
+        assertEquals("https://www.example.org", BarcodeClassifier.parseUrl("www.example.org"));
+        assertEquals("https://shop.example.de/item", BarcodeClassifier.parseUrl("shop.example.de/item"));
+        assertNull(BarcodeClassifier.parseUrl("LOT 2024-0117 BATCH A"));
+        assertNull(BarcodeClassifier.parseUrl("v1.2"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.a22f3272smd_project;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BarcodeDeduplicatorTest {
+
+    private static final long COOLDOWN = 2000;
+
+    @Test
+    public void repeatsWithinWindowAreSuppressed() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        assertTrue(deduplicator.accept("4006381333931", 0));
+        assertFalse(deduplicator.accept("4006381333931", 500));
+        assertFalse(deduplicator.accept("4006381333931", 1999));
+    }
+
+    @Test
+    public void distinctValuesAreIndependent() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        assertTrue(deduplicator.accept("A", 0));
+        assertTrue(deduplicator.accept("B", 0));
+        assertFalse(deduplicator.accept("A", 10));
+        assertFalse(deduplicator.accept("B", 10));
+        assertFalse(deduplicator.accept(null, 10));
+    }
+
+    @Test
+    public void acceptedAgainAfterWindow() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        assertTrue(deduplicator.accept("A", 0));
+        assertTrue(deduplicator.accept("A", COOLDOWN));
+        assertFalse(deduplicator.accept("A", COOLDOWN + 1));
+    }
+
+    @Test
+    public void codeHeldInViewStaysSuppressed() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        assertTrue(deduplicator.accept("A", 0));
+        // Each sighting restarts the window
+        for (long now = 1000; now <= 10_000; now += 1000) {
+            assertFalse(deduplicator.accept("A", now));
+        }
+        assertTrue(deduplicator.accept("A", 10_000 + COOLDOWN));
+    }
+
+    @Test
+    public void touchRenewsWindowWithoutReporting() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        deduplicator.touch("A", 0);
+        assertTrue("unknown codes aren't remembered by touch", deduplicator.accept("A", 1));
+
+        // Reused results in between keep the code suppressed past the original window
+        deduplicator.touch("A", 1500);
+        deduplicator.touch("A", 3000);
+        assertFalse(deduplicator.accept("A", 4000));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(64, COOLDOWN);
+        assertTrue(deduplicator.accept("A", 0));
+        deduplicator.clear();
+        assertTrue(deduplicator.accept("A", 1));
+    }
+
+    @Test
+    public void overflowEvictsOldestAndNeverBlocks() {
+        // Capacity 8 gives a 16 slot table
+        BarcodeDeduplicator deduplicator = new BarcodeDeduplicator(8, 60_000);
+        int codes = 100;
+        for (int i = 0; i < codes; i++) {
+            // Every new code is reported even though the table is full
+            assertTrue(deduplicator.accept("code" + i, i));
+        }
+
+        // The newest code is still remembered
+        assertFalse(deduplicator.accept("code" + (codes - 1), codes));
+
+        // At most 16 codes fit, so most old ones were evicted and count as new again
+        int reaccepted = 0;
+        for (int i = 0; i < 50; i++) {
+            if (deduplicator.accept("code" + i, codes + 1)) {
+                reaccepted++;
+            }
+        }
+        assertTrue("only " + reaccepted + " evicted", reaccepted >= 50 - 16);
+    }
+}
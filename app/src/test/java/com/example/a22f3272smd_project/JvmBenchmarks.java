@@ -0,0 +1,28 @@
+package com.example.a22f3272smd_project;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Launches the JMH benchmarks in this source set from the unit test task.
+ * Skipped unless the build is run with -PrunBenchmarks; the GC profiler reports the
+ * allocation rate (gc.alloc.rate.norm is bytes per operation) next to throughput.
+ */
+public class JvmBenchmarks {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("runBenchmarks"));
+
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackage().getName() + ".*Benchmark")
+                .forks(Integer.getInteger("benchmarkForks", 1))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.a22f3272smd_project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the translation stage on a recurring live OCR result, with a local fake
+ * translator that costs about as much as a warm on-device model per line.
+ * Run with ./gradlew :app:testDebugUnitTest -PrunBenchmarks --tests '*JvmBenchmarks'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TranslationStageBenchmark {
+
+    // A menu board as live OCR re-reads it: same lines, slightly different case and spacing
+    private static final List<String> FRAME_A = Arrays.asList(
+            "TODAY'S SPECIALS", "Grilled chicken  salad", "Tomato soup", "Fresh orange juice", "EXIT");
+    private static final List<String> FRAME_B = Arrays.asList(
+            "Today's specials", "Grilled chicken salad", "tomato soup ", "Fresh orange juice", "Exit");
+
+    /**
+     * Reverses the line after a fixed delay, standing in for the ML Kit model
+     */
+    private static final class FakeBackend implements TranslationStage.Backend {
+        @Override
+        public String translate(String text) throws Exception {
+            Thread.sleep(2);
+            return new StringBuilder(text).reverse().toString();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private TranslationStage cachedStage;
+    private TranslationStage uncachedStage;
+    private final SynchronousQueue<List<String>> results = new SynchronousQueue<>();
+    private boolean useFrameB;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cachedStage = new TranslationStage(new FakeBackend(), new TranslationCache(512, null),
+                "en>es", Runnable::run);
+        // Capacity 0 evicts every entry straight away, so each line reaches the translator
+        uncachedStage = new TranslationStage(new FakeBackend(), new TranslationCache(0, null),
+                "en>es", Runnable::run);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cachedStage.close();
+        uncachedStage.close();
+    }
+
+    @Benchmark
+    public List<String> cachedFrame() throws InterruptedException {
+        return translate(cachedStage);
+    }
+
+    @Benchmark
+    public List<String> uncachedFrame() throws InterruptedException {
+        return translate(uncachedStage);
+    }
+
+    private List<String> translate(TranslationStage stage) throws InterruptedException {
+        useFrameB = !useFrameB;
+        stage.translate(useFrameB ? FRAME_B : FRAME_A, (lines, translations) -> {
+            try {
+                results.put(translations);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return results.take();
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.a22f3272smd_project;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TranslationStageTest {
+
+    /**
+     * Prefixes every line; the first call can be held until the test lets it finish
+     */
+    private static final class FakeBackend implements TranslationStage.Backend {
+        final CountDownLatch firstCallStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstCall = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean closed;
+
+        @Override
+        public String translate(String text) throws Exception {
+            if (calls.incrementAndGet() == 1) {
+                firstCallStarted.countDown();
+                releaseFirstCall.await(5, TimeUnit.SECONDS);
+            }
+            return "es:" + text;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class FakeStore implements TranslationCache.Store {
+        final Map<String, String> entries = new HashMap<>();
+        int loads;
+
+        @Override
+        public Map<String, String> loadAll(Collection<String> keys) {
+            loads++;
+            Map<String, String> found = new HashMap<>();
+            for (String key : keys) {
+                if (entries.containsKey(key)) {
+                    found.put(key, entries.get(key));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public void saveAll(Map<String, String> saved) {
+            entries.putAll(saved);
+        }
+    }
+
+    /**
+     * Store whose reads and writes always fail, like a full or corrupt database
+     */
+    private static final class BrokenStore implements TranslationCache.Store {
+        @Override
+        public Map<String, String> loadAll(Collection<String> keys) {
+            throw new IllegalStateException("database is locked");
+        }
+
+        @Override
+        public void saveAll(Map<String, String> saved) {
+            throw new IllegalStateException("disk full");
+        }
+    }
+
+    /**
+     * In-memory DAO with the same "keep the newest rows" trim as the SQL query
+     */
+    private static final class FakeDao implements CachedTranslationDao {
+        final List<CachedTranslation> rows = new ArrayList<>();
+        int trims;
+
+        @Override
+        public List<CachedTranslation> findAll(List<String> keys) {
+            List<CachedTranslation> found = new ArrayList<>();
+            for (CachedTranslation row : rows) {
+                if (keys.contains(row.cacheKey)) {
+                    found.add(row);
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public void insertAll(List<CachedTranslation> translations) {
+            for (CachedTranslation translation : translations) {
+                rows.removeIf(row -> row.cacheKey.equals(translation.cacheKey));
+                rows.add(translation);
+            }
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public void trimTo(int keep) {
+            trims++;
+            // Rows are in insertion order, which also breaks created_at ties
+            List<CachedTranslation> newest = new ArrayList<>(rows);
+            Collections.reverse(newest);
+            newest.sort((a, b) -> Long.compare(b.createdAt, a.createdAt));
+            rows.retainAll(newest.subList(0, Math.min(keep, newest.size())));
+        }
+    }
+
+    private static List<String> lines(String... lines) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, lines);
+        return list;
+    }
+
+    @Test
+    public void onlyLatestPendingRequestRuns() throws Exception {
+        FakeBackend backend = new FakeBackend();
+        TranslationStage stage = new TranslationStage(backend, new TranslationCache(16, null), "en>es", Runnable::run);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        TranslationStage.Callback callback = (source, translations) -> {
+            delivered.add(translations.get(0));
+            done.countDown();
+        };
+
+        stage.translate(lines("first"), callback);
+        assertTrue(backend.firstCallStarted.await(5, TimeUnit.SECONDS));
+        // Both queued while "first" runs; only the newer one survives
+        stage.translate(lines("second"), callback);
+        stage.translate(lines("third"), callback);
+        backend.releaseFirstCall.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        stage.close();
+        assertEquals(lines("es:first", "es:third"), delivered);
+        assertEquals(1, stage.getSupersededRequests());
+        assertEquals(2, stage.getBackendCalls());
+    }
+
+    @Test
+    public void translateAfterCloseIsIgnored() throws Exception {
+        FakeBackend backend = new FakeBackend();
+        backend.releaseFirstCall.countDown();
+        TranslationStage stage = new TranslationStage(backend, new TranslationCache(16, null), "en>es", Runnable::run);
+        stage.close();
+
+        AtomicInteger callbacks = new AtomicInteger();
+        stage.translate(lines("late"), (source, translations) -> callbacks.incrementAndGet());
+
+        assertEquals(0, callbacks.get());
+        assertEquals(0, stage.getBackendCalls());
+    }
+
+    @Test
+    public void failedLinesComeBackUntranslated() throws Exception {
+        TranslationStage.Backend backend = new TranslationStage.Backend() {
+            @Override
+            public String translate(String text) throws Exception {
+                if (text.equals("broken")) {
+                    throw new Exception("model not downloaded");
+                }
+                return "es:" + text;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        TranslationStage stage = new TranslationStage(backend, new TranslationCache(16, null), "en>es", Runnable::run);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        stage.setErrorListener((message, e) -> errors.add(e.getMessage()));
+
+        List<List<String>> delivered = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch done = new CountDownLatch(1);
+            stage.translate(lines("exit", "broken"), (source, translations) -> {
+                delivered.add(translations);
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        stage.close();
+
+        assertEquals(lines("es:exit", "broken"), delivered.get(0));
+        assertEquals(lines("es:exit", "broken"), delivered.get(1));
+        // Failures aren't cached, so the second request retries the broken line only
+        assertEquals(3, stage.getBackendCalls());
+        assertEquals(lines("model not downloaded", "model not downloaded"), errors);
+    }
+
+    @Test
+    public void brokenStoreStillDeliversTranslations() throws Exception {
+        FakeBackend backend = new FakeBackend();
+        backend.releaseFirstCall.countDown();
+        TranslationStage stage = new TranslationStage(backend, new TranslationCache(16, new BrokenStore()), "en>es", Runnable::run);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        stage.setErrorListener((message, e) -> errors.add(e.getMessage()));
+
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        stage.translate(lines("exit", "entrance"), (source, translations) -> {
+            delivered.addAll(translations);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        stage.close();
+
+        assertEquals(lines("es:exit", "es:entrance"), delivered);
+        assertEquals(lines("database is locked", "disk full"), errors);
+    }
+
+    @Test
+    public void evictedEntriesAreServedFromStore() {
+        FakeStore store = new FakeStore();
+        TranslationCache cache = new TranslationCache(2, store);
+        cache.putAll(Collections.singletonMap("a", "A"));
+        cache.putAll(Collections.singletonMap("b", "B"));
+        cache.putAll(Collections.singletonMap("c", "C")); // Evicts "a" from memory
+
+        Map<String, String> found = new HashMap<>();
+        List<String> missing = cache.lookup(lines("a", "c", "z"), found);
+
+        assertEquals(lines("z"), missing);
+        assertEquals("A", found.get("a"));
+        assertEquals("C", found.get("c"));
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(1, cache.getStoreHits());
+        assertEquals(1, cache.getMisses());
+
+        // Promoted back into memory, so the store isn't asked again
+        int loads = store.loads;
+        assertTrue(cache.lookup(lines("a"), new HashMap<>()).isEmpty());
+        assertEquals(loads, store.loads);
+        assertEquals(2, cache.getMemoryHits());
+    }
+
+    @Test
+    public void stageDoesNotRetranslateEvictedLines() throws Exception {
+        FakeBackend backend = new FakeBackend();
+        backend.releaseFirstCall.countDown();
+        TranslationStage stage = new TranslationStage(backend, new TranslationCache(1, new FakeStore()), "en>es", Runnable::run);
+
+        for (String line : new String[]{"exit", "entrance", "EXIT "}) {
+            CountDownLatch done = new CountDownLatch(1);
+            stage.translate(lines(line), (source, translations) -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        stage.close();
+
+        assertEquals(2, stage.getBackendCalls());
+        assertEquals(1, stage.getCache().getStoreHits());
+    }
+
+    @Test
+    public void storeTrimsToNewestRows() {
+        FakeDao dao = new FakeDao();
+        TranslationCache.Store store = TranslationCacheDatabase.store(dao, 3);
+        for (int i = 0; i < 5; i++) {
+            store.saveAll(Collections.singletonMap("key" + i, "value" + i));
+        }
+
+        assertEquals(3, dao.count());
+        assertEquals(2, dao.trims);
+        Map<String, String> loaded = store.loadAll(lines("key0", "key1", "key2", "key3", "key4"));
+        assertEquals(3, loaded.size());
+        assertFalse(loaded.containsKey("key0"));
+        assertFalse(loaded.containsKey("key1"));
+        assertEquals("value4", loaded.get("key4"));
+    }
+}
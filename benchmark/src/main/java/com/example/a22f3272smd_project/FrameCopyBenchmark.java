@@ -0,0 +1,111 @@
+package com.example.a22f3272smd_project;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.camera.core.ImageInfo;
+import androidx.camera.core.ImageProxy;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Device benchmarks for copying analysis frames into pooled NV21 buffers. The pool allocates
+ * nothing once warm; the mocked ImageProxy adds a small constant cost to each copy.
+ *
+ * Run with ./gradlew :benchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameCopyBenchmark {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    // Row padding as seen on many devices
+    private static final int ROW_STRIDE = 704;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    /**
+     * U and V as views over one VU buffer, the common camera layout: bulk row copies
+     */
+    @Test
+    public void copyInterleavedVu() {
+        copyRepeatedly(interleavedFrame());
+    }
+
+    /**
+     * Separate U and V planes: per-pixel chroma fallback
+     */
+    @Test
+    public void copyPlanar() {
+        copyRepeatedly(planarFrame());
+    }
+
+    private void copyRepeatedly(ImageProxy image) {
+        Nv21FramePool pool = new Nv21FramePool(2);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            pool.copy(image).release();
+        }
+    }
+
+    private static ImageProxy interleavedFrame() {
+        int chromaLength = ROW_STRIDE * (HEIGHT / 2 - 1) + WIDTH - 1;
+        ByteBuffer vu = filled(ROW_STRIDE * (HEIGHT / 2));
+        vu.position(0);
+        vu.limit(chromaLength);
+        ByteBuffer v = vu.slice();
+        vu.limit(chromaLength + 1);
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return frame(u, v, 2, ROW_STRIDE);
+    }
+
+    private static ImageProxy planarFrame() {
+        int chromaRowStride = ROW_STRIDE / 2;
+        ByteBuffer u = filled(chromaRowStride * (HEIGHT / 2));
+        ByteBuffer v = filled(chromaRowStride * (HEIGHT / 2));
+        return frame(u, v, 1, chromaRowStride);
+    }
+
+    private static ImageProxy frame(ByteBuffer u, ByteBuffer v, int uvPixelStride, int chromaRowStride) {
+        ImageProxy.PlaneProxy y = plane(filled(ROW_STRIDE * HEIGHT), ROW_STRIDE, 1);
+        ImageProxy.PlaneProxy uPlane = plane(u, chromaRowStride, uvPixelStride);
+        ImageProxy.PlaneProxy vPlane = plane(v, chromaRowStride, uvPixelStride);
+
+        ImageInfo info = mock(ImageInfo.class);
+        when(info.getRotationDegrees()).thenReturn(90);
+        ImageProxy image = mock(ImageProxy.class);
+        when(image.getWidth()).thenReturn(WIDTH);
+        when(image.getHeight()).thenReturn(HEIGHT);
+        when(image.getPlanes()).thenReturn(new ImageProxy.PlaneProxy[]{y, uPlane, vPlane});
+        when(image.getImageInfo()).thenReturn(info);
+        return image;
+    }
+
+    private static ImageProxy.PlaneProxy plane(ByteBuffer buffer, int rowStride, int pixelStride) {
+        ImageProxy.PlaneProxy plane = mock(ImageProxy.PlaneProxy.class);
+        when(plane.getBuffer()).thenReturn(buffer);
+        when(plane.getRowStride()).thenReturn(rowStride);
+        when(plane.getPixelStride()).thenReturn(pixelStride);
+        return plane;
+    }
+
+    /**
+     * Direct buffer with a varying pattern, so V and U never start with the same byte
+     */
+    private static ByteBuffer filled(int length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(i, (byte) (i * 7));
+        }
+        return buffer;
+    }
+}
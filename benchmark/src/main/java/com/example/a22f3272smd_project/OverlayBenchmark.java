@@ -0,0 +1,279 @@
+package com.example.a22f3272smd_project;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceLandmark;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+/**
+ * Device benchmarks for the overlay hot paths that need real android.graphics classes.
+ * androidx.benchmark reports time and allocations per iteration.
+ *
+ * Run with ./gradlew :benchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class OverlayBenchmark {
+
+    private static final int VIEW_WIDTH = 1080;
+    private static final int VIEW_HEIGHT = 1440;
+    private static final int IMAGE_WIDTH = 640;
+    private static final int IMAGE_HEIGHT = 480;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    public void textOverlayMapXY() {
+        TextOverlay overlay = layoutTextOverlay();
+        BenchmarkState state = benchmarkRule.getState();
+        float x = 0;
+        float sink = 0;
+        while (state.keepRunning()) {
+            sink += overlay.mapX(x) + overlay.mapY(x);
+            x = (x + 7) % IMAGE_WIDTH;
+        }
+        consume(sink);
+    }
+
+    @Test
+    public void textOverlayMapRect() {
+        TextOverlay overlay = layoutTextOverlay();
+        Rect imageRect = new Rect(40, 60, 180, 96);
+        float[] out = new float[4];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            overlay.mapRect(imageRect, out, 0);
+        }
+    }
+
+    @Test
+    public void graphicTranslateXY() {
+        GraphicOverlay overlay = layoutGraphicOverlay();
+        GraphicOverlay.Graphic graphic = new GraphicOverlay.Graphic(overlay) {
+            @Override
+            public void draw(Canvas canvas) {
+            }
+        };
+        BenchmarkState state = benchmarkRule.getState();
+        float x = 0;
+        float sink = 0;
+        while (state.keepRunning()) {
+            sink += graphic.translateX(x) + graphic.translateY(x);
+            x = (x + 7) % IMAGE_WIDTH;
+        }
+        consume(sink);
+    }
+
+    /**
+     * Cost of opening and closing a recording canvas, to subtract from faceGraphicDraw
+     */
+    @Test
+    public void recordingCanvasBaseline() {
+        Picture picture = new Picture();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            picture.beginRecording(VIEW_WIDTH, VIEW_HEIGHT);
+            picture.endRecording();
+        }
+    }
+
+    @Test
+    public void faceGraphicDraw() {
+        GraphicOverlay overlay = layoutGraphicOverlay();
+        FaceGraphic graphic = new FaceGraphic(overlay, fakeFace());
+        Picture picture = new Picture();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Canvas canvas = picture.beginRecording(VIEW_WIDTH, VIEW_HEIGHT);
+            graphic.draw(canvas);
+            picture.endRecording();
+        }
+    }
+
+    /**
+     * Software fallback: batched lines and unshadowed labels, issued on every frame
+     */
+    @Test
+    public void boxLabelRendererBatched50() {
+        drawBatched(50);
+    }
+
+    @Test
+    public void boxLabelRendererBatched500() {
+        drawBatched(500);
+    }
+
+    /**
+     * Hardware path with unchanged content: replays the retained display list, so the
+     * cost should not grow with the box count
+     */
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.Q)
+    public void boxLabelRendererRetained50() {
+        drawRetained(50);
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.Q)
+    public void boxLabelRendererRetained500() {
+        drawRetained(500);
+    }
+
+    /**
+     * Tap lookup on a dense page; only the cells around the touch point are visited
+     */
+    @Test
+    public void textSpatialIndexHitTest500() {
+        int boxCount = 500;
+        float[] boxes = denseBoxes(boxCount);
+        TextSpatialIndex index = new TextSpatialIndex();
+        index.build(boxes, boxCount, VIEW_WIDTH, VIEW_HEIGHT);
+        int[] scratch = new int[boxCount];
+        BenchmarkState state = benchmarkRule.getState();
+        float x = 0;
+        int sink = 0;
+        while (state.keepRunning()) {
+            sink += index.hitTest(x, x * VIEW_HEIGHT / VIEW_WIDTH, 8, scratch);
+            x = (x + 37) % VIEW_WIDTH;
+        }
+        consume(sink);
+    }
+
+    private void drawBatched(int boxCount) {
+        BoxLabelRenderer renderer = denseRenderer(boxCount);
+        Picture picture = new Picture();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Canvas canvas = picture.beginRecording(VIEW_WIDTH, VIEW_HEIGHT);
+            renderer.draw(canvas, VIEW_WIDTH, VIEW_HEIGHT);
+            picture.endRecording();
+        }
+    }
+
+    private void drawRetained(int boxCount) {
+        BoxLabelRenderer renderer = denseRenderer(boxCount);
+        RenderNode frame = new RenderNode("frame");
+        frame.setPosition(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RecordingCanvas canvas = frame.beginRecording();
+            renderer.draw(canvas, VIEW_WIDTH, VIEW_HEIGHT);
+            frame.endRecording();
+        }
+    }
+
+    private static BoxLabelRenderer denseRenderer(int boxCount) {
+        Paint boxPaint = new Paint();
+        boxPaint.setColor(Color.RED);
+        boxPaint.setStyle(Paint.Style.STROKE);
+        boxPaint.setStrokeWidth(4.0f);
+        Paint textPaint = new Paint();
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(32f);
+        textPaint.setShadowLayer(3.0f, 0f, 0f, Color.BLACK);
+
+        String[] labels = new String[boxCount];
+        for (int i = 0; i < boxCount; i++) {
+            labels[i] = "word" + i;
+        }
+
+        BoxLabelRenderer renderer = new BoxLabelRenderer(boxPaint, textPaint);
+        renderer.setContent(denseBoxes(boxCount), labels, boxCount);
+        return renderer;
+    }
+
+    /**
+     * A grid of word-sized boxes covering the view, like a dense page of OCR output
+     */
+    private static float[] denseBoxes(int boxCount) {
+        int columns = 10;
+        float cellWidth = (float) VIEW_WIDTH / columns;
+        float cellHeight = (float) VIEW_HEIGHT / ((boxCount + columns - 1) / columns);
+        float[] boxes = new float[boxCount * 4];
+        for (int i = 0; i < boxCount; i++) {
+            float left = (i % columns) * cellWidth;
+            float top = (i / columns) * cellHeight;
+            boxes[i * 4] = left + 4;
+            boxes[i * 4 + 1] = top + cellHeight / 2;
+            boxes[i * 4 + 2] = left + cellWidth - 4;
+            boxes[i * 4 + 3] = top + cellHeight - 4;
+        }
+        return boxes;
+    }
+
+    private TextOverlay layoutTextOverlay() {
+        TextOverlay overlay = new TextOverlay(context);
+        overlay.layout(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+        // Applied directly; setDocument() would defer it to the next vsync
+        overlay.applySnapshot(new TextOverlay.TextSnapshot(OcrDocument.empty(), IMAGE_WIDTH, IMAGE_HEIGHT, 90));
+        return overlay;
+    }
+
+    private GraphicOverlay layoutGraphicOverlay() {
+        GraphicOverlay overlay = new GraphicOverlay(context, null);
+        overlay.layout(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+        overlay.applySnapshot(new GraphicOverlay.FaceSnapshot(Collections.emptyList(), IMAGE_WIDTH, IMAGE_HEIGHT));
+        return overlay;
+    }
+
+    /**
+     * Face has no public constructor, so the detector output is stubbed with every
+     * optional field present (the most expensive draw)
+     */
+    private static Face fakeFace() {
+        FaceLandmark landmark = mock(FaceLandmark.class);
+        when(landmark.getPosition()).thenReturn(new PointF(320, 240));
+
+        Face face = mock(Face.class);
+        when(face.getBoundingBox()).thenReturn(new Rect(220, 140, 420, 340));
+        when(face.getTrackingId()).thenReturn(1);
+        when(face.getLandmark(anyInt())).thenReturn(landmark);
+        when(face.getSmilingProbability()).thenReturn(0.82f);
+        when(face.getLeftEyeOpenProbability()).thenReturn(0.91f);
+        when(face.getRightEyeOpenProbability()).thenReturn(0.47f);
+        return face;
+    }
+
+    private static void consume(int value) {
+        consume((float) value);
+    }
+
+    private static void consume(float value) {
+        if (value == Float.MIN_VALUE) {
+            throw new AssertionError();
+        }
+    }
+}